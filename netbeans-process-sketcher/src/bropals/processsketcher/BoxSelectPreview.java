@@ -0,0 +1,154 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher;
+
+import bropals.processsketcher.data.Flowchart;
+import bropals.processsketcher.data.Node;
+import bropals.processsketcher.util.LinkedIdentitySet;
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Keeps track of the nodes that are completely inside of the box being
+ * dragged out to select things, so that they can be shown before the mouse
+ * is let go. When the box changes, only the nodes near the parts of the box
+ * that moved are looked at.
+ * @author Jonathon
+ */
+public class BoxSelectPreview {
+
+    /**
+     * The nodes that are inside of the box.
+     */
+    private final LinkedIdentitySet<Node> inside;
+    /**
+     * The edges of the box, in world coordinates.
+     */
+    private float left, top, right, bottom;
+    /**
+     * Whether or not there is a box yet.
+     */
+    private boolean active;
+
+    /**
+     * Creates a preview with no box.
+     */
+    public BoxSelectPreview() {
+        inside = new LinkedIdentitySet<>();
+        active = false;
+    }
+
+    /**
+     * Changes the box and finds the nodes that went into or out of it.
+     * @param flowchart the flowchart that the box is being dragged over.
+     * @param x the X position of one corner of the box, in world coordinates.
+     * @param y the Y position of one corner of the box, in world coordinates.
+     * @param width the width of the box, which can be negative.
+     * @param height the height of the box, which can be negative.
+     * @return the nodes that went into or out of the box.
+     */
+    public ArrayList<Node> update(Flowchart flowchart, float x, float y, float width, float height) {
+        float newLeft = Math.min(x, x + width);
+        float newTop = Math.min(y, y + height);
+        float newRight = Math.max(x, x + width);
+        float newBottom = Math.max(y, y + height);
+
+        // a node can only go into or out of the box if it touches a part of
+        // the old or new box that the other one does not cover
+        ArrayList<Node> candidates = new ArrayList<>();
+        if (!active || newLeft > right || newRight < left || newTop > bottom || newBottom < top) {
+            if (active) {
+                candidates.addAll(inside);
+            }
+            candidates.addAll(flowchart.getNodesInArea(newLeft, newTop, newRight - newLeft, newBottom - newTop));
+        } else {
+            float unionLeft = Math.min(left, newLeft);
+            float unionTop = Math.min(top, newTop);
+            float unionRight = Math.max(right, newRight);
+            float unionBottom = Math.max(bottom, newBottom);
+            float sameLeft = Math.max(left, newLeft);
+            float sameTop = Math.max(top, newTop);
+            float sameRight = Math.min(right, newRight);
+            float sameBottom = Math.min(bottom, newBottom);
+            addStrip(candidates, flowchart, unionLeft, unionTop, unionRight, sameTop);
+            addStrip(candidates, flowchart, unionLeft, sameBottom, unionRight, unionBottom);
+            addStrip(candidates, flowchart, unionLeft, sameTop, sameLeft, sameBottom);
+            addStrip(candidates, flowchart, sameRight, sameTop, unionRight, sameBottom);
+        }
+
+        left = newLeft;
+        top = newTop;
+        right = newRight;
+        bottom = newBottom;
+        active = true;
+
+        ArrayList<Node> changed = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Node n = candidates.get(i);
+            // the same test as the one used to select the nodes at the end
+            boolean isInside = left < n.getX() && right > n.getX() + n.getWidth()
+                    && top < n.getY() && bottom > n.getY() + n.getHeight();
+            if (isInside ? inside.add(n) : inside.remove(n)) {
+                changed.add(n);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Adds the nodes that touch one strip of the area between the old and
+     * new boxes. Nothing is added if the strip is empty.
+     */
+    private void addStrip(ArrayList<Node> candidates, Flowchart flowchart,
+            float stripLeft, float stripTop, float stripRight, float stripBottom) {
+        if (stripRight > stripLeft && stripBottom > stripTop) {
+            candidates.addAll(flowchart.getNodesInArea(stripLeft, stripTop,
+                    stripRight - stripLeft, stripBottom - stripTop));
+        }
+    }
+
+    /**
+     * Checks to see if a node is inside of the box.
+     * @param node the node to check.
+     * @return <code>true</code> if the node is completely inside of the box.
+     */
+    public boolean contains(Node node) {
+        return inside.contains(node);
+    }
+
+    /**
+     * Gets the nodes that are inside of the box.
+     * @return the nodes that are completely inside of the box.
+     */
+    public Set<Node> getNodes() {
+        return inside;
+    }
+
+    /**
+     * Forgets the box and the nodes that were in it.
+     * @return the nodes that were in the box.
+     */
+    public ArrayList<Node> clear() {
+        ArrayList<Node> cleared = new ArrayList<>(inside);
+        inside.clear();
+        active = false;
+        return cleared;
+    }
+}
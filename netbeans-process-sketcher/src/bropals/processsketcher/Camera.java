@@ -19,7 +19,10 @@
  */
 package bropals.processsketcher;
 
+import bropals.processsketcher.style.DetailLevel;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Holds the view transformation.
@@ -36,6 +39,15 @@ public class Camera {
      * The maximum zoom value.
      */
     public static final float ZOOM_MAX = 10;
+    /**
+     * The default zoom factor at and past which text is no longer drawn.
+     */
+    public static final float DEFAULT_REDUCED_DETAIL_ZOOM = 3;
+    /**
+     * The default zoom factor at and past which nodes and lines are only
+     * drawn as plain shapes.
+     */
+    public static final float DEFAULT_MINIMAL_DETAIL_ZOOM = 6;
     
     /**
      * The zoom factor of this Camera.
@@ -53,6 +65,16 @@ public class Camera {
      * Whether or not this camera can be transformed by an outside client.
      */
     private boolean locked = false;
+    /**
+     * The zoom factor at and past which the view is drawn with
+     * {@link DetailLevel#REDUCED reduced} detail.
+     */
+    private float reducedDetailZoom = DEFAULT_REDUCED_DETAIL_ZOOM;
+    /**
+     * The zoom factor at and past which the view is drawn with
+     * {@link DetailLevel#MINIMAL minimal} detail.
+     */
+    private float minimalDetailZoom = DEFAULT_MINIMAL_DETAIL_ZOOM;
     
     /**
      * Creates a Camera with default values. (Position = (0, 0), Zoom = 1).
@@ -76,6 +98,20 @@ public class Camera {
         
     }
     
+    /**
+     * Converts the given area from canvas coordinates to world coordinates.
+     * @param r the area in canvas coordinates.
+     * @return the same area but in world coordinates.
+     */
+    public Rectangle2D.Float convertCanvasToWorld(Rectangle r) {
+        return new Rectangle2D.Float(
+                convertCanvasToWorldX(r.x),
+                convertCanvasToWorldY(r.y),
+                convertCanvasToWorldLength(r.width),
+                convertCanvasToWorldLength(r.height)
+        );
+    }
+    
     /**
      * Converts the given point from world coordinates to canvas coordinates.
      * @param p the point in world coordinates.
@@ -275,6 +311,55 @@ public class Camera {
         }
     }
     
+    /**
+     * Gets how much detail is drawn in the view at the current zoom factor.
+     * @return the level of detail for the current zoom factor.
+     */
+    public DetailLevel getDetailLevel() {
+        if (zoom >= minimalDetailZoom) {
+            return DetailLevel.MINIMAL;
+        } else if (zoom >= reducedDetailZoom) {
+            return DetailLevel.REDUCED;
+        }
+        return DetailLevel.FULL;
+    }
+    
+    /**
+     * Gets the zoom factor at and past which text is no longer drawn.
+     * @return the zoom factor where the detail becomes reduced.
+     */
+    public float getReducedDetailZoom() {
+        return reducedDetailZoom;
+    }
+    
+    /**
+     * Sets the zoom factor at and past which text is no longer drawn.
+     * @param reducedDetailZoom the zoom factor where the detail becomes
+     * reduced.
+     */
+    public void setReducedDetailZoom(float reducedDetailZoom) {
+        this.reducedDetailZoom = reducedDetailZoom;
+    }
+    
+    /**
+     * Gets the zoom factor at and past which nodes and lines are only drawn
+     * as plain shapes.
+     * @return the zoom factor where the detail becomes minimal.
+     */
+    public float getMinimalDetailZoom() {
+        return minimalDetailZoom;
+    }
+    
+    /**
+     * Sets the zoom factor at and past which nodes and lines are only drawn
+     * as plain shapes.
+     * @param minimalDetailZoom the zoom factor where the detail becomes
+     * minimal.
+     */
+    public void setMinimalDetailZoom(float minimalDetailZoom) {
+        this.minimalDetailZoom = minimalDetailZoom;
+    }
+    
     /**
      * Locks the camera so that its position and zoom cannot be changed.
      */
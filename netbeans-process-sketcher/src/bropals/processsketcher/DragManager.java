@@ -22,6 +22,7 @@ package bropals.processsketcher;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.Selectable;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /*
  * To change this license header, choose License Headers in Project Properties.
@@ -135,7 +136,7 @@ public class DragManager {
      * Sets the selectables in the clipboard.
      * @param selectables the selectables to occupy the clipboard
      */
-    public void setStuffInClipboard(ArrayList<Selectable> selectables) {
+    public void setStuffInClipboard(Collection<Selectable> selectables) {
         clipboard.clear();
         clipboard.addAll(selectables);
     }
@@ -322,8 +323,8 @@ public class DragManager {
      * @param mouseY the current mouse Y position in world coordinates.
      */
     public void startDragMove(float mouseX, float mouseY) {
-        moveDragging = (Node[])selectionManager.getSelectedNodes().toArray(
-                new Node[0]);
+        moveDragging = selectionManager.getSelectedNodes().toArray(
+                new Node[selectionManager.getSelectedNodes().size()]);
         
         initialX = mouseX;
         initialY = mouseY;
@@ -343,8 +344,8 @@ public class DragManager {
     
     public void updateDragMove(float mouseX, float mouseY) {
         for (int i=0; i<moveDragging.length; i++) {
-            moveDragging[i].setX(initialX+offsetX+moveDragOffsets[i][0]);
-            moveDragging[i].setY(initialY+offsetY+moveDragOffsets[i][1]);
+            moveDragging[i].setLocation(initialX+offsetX+moveDragOffsets[i][0],
+                    initialY+offsetY+moveDragOffsets[i][1]);
         }
     }
     
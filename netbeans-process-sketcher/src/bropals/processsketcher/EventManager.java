@@ -34,17 +34,22 @@ import bropals.processsketcher.action.Deleted;
 import bropals.processsketcher.action.EditedNodeText;
 import bropals.processsketcher.action.CreatedConnectedNode;
 import bropals.processsketcher.action.*;
+import bropals.processsketcher.data.Flowchart;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
 import bropals.processsketcher.data.Selectable;
 import bropals.processsketcher.style.NodeStyle;
 import bropals.processsketcher.style.Shape;
 import bropals.processsketcher.util.BooleanBlinkListener;
+import bropals.processsketcher.util.LinkedIdentitySet;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
@@ -53,6 +58,10 @@ import java.awt.event.MouseMotionListener;
 import java.awt.print.PageFormat;
 import java.awt.print.PrinterJob;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
@@ -68,7 +77,7 @@ import javax.swing.JSpinner;
  *
  * @author Jonathon
  */
-public class EventManager implements KeyListener, MouseListener, MouseMotionListener, BooleanBlinkListener {
+public class EventManager implements KeyListener, MouseListener, MouseMotionListener, FocusListener, BooleanBlinkListener {
 
     /**
      * The SelectionManager used by this object and the window.
@@ -82,6 +91,10 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * The DragManager for containing information about dragging things.
      */
     private final DragManager dragManager;
+    /**
+     * The nodes inside of the box being dragged out to select things.
+     */
+    private final BoxSelectPreview boxSelectPreview;
     /**
      * Contains all the information and methods for typing text.
      */
@@ -94,6 +107,20 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * The variable to track if the spacebar is held down or not.
      */
     private boolean spacebar;
+    /**
+     * The edge of a node that the mouse was last over, which decides the
+     * cursor that is showing. One of the <code>EDGE_</code> constants.
+     */
+    private int hoverEdge;
+
+    /**
+     * The edges of a node that the mouse can be over to resize it.
+     */
+    private final static int EDGE_NONE = 0;
+    private final static int EDGE_LEFT = 1;
+    private final static int EDGE_TOP = 2;
+    private final static int EDGE_BOTTOM = 3;
+    private final static int EDGE_RIGHT = 4;
 
     /**
      * How close the mouse has to be to an edge of a node to be able to resize
@@ -109,6 +136,8 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
         window = instance;
         selectionManager = new SelectionManager(instance);
         dragManager = new DragManager(selectionManager);
+        boxSelectPreview = new BoxSelectPreview();
+        hoverEdge = EDGE_NONE;
         textTypeManager = new TextTypeManager();
         historyManager = new HistoryManager(instance);
     }
@@ -119,7 +148,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * @return True if the selectable is selected; returns false if it's not selected.
      */
     public boolean isSelected(Selectable s) {
-        return selectionManager.getSelected().contains(s);
+        return selectionManager.isSelected(s);
     }
     
     /**
@@ -138,16 +167,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * Delete all the selected nodes and deselect
      */
     public void deleteSelected() {
-        ArrayList<Selectable> deletedThings = new ArrayList<>();
-        deletedThings.addAll(selectionManager.getSelected());
-        
-        // add a nodeline to the deleted list of it's parent and child are being deleted too
-        for (NodeLine nl : window.getFlowchart().getNodeLines()) {
-            if (!deletedThings.contains(nl) && (deletedThings.contains(nl.getChild()) || 
-                    deletedThings.contains(nl.getParent()))) {
-                deletedThings.add(nl);
-            }
-        }
+        ArrayList<Selectable> deletedThings = withConnectedLines(selectionManager.getSelected());
         selectionManager.removeSelectables(deletedThings);
         // add it to history
         historyManager.addToHistory(new Deleted(deletedThings));
@@ -156,6 +176,24 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
         window.redrawView();
     }
 
+    /**
+     * Get a list of the given selectables along with every line that is
+     * connected to one of the nodes in it, since those lines go away with
+     * their node and can't be found from it afterwards.
+     * @param selectables the selectables being removed or copied
+     * @return the selectables followed by the lines connected to them
+     */
+    private ArrayList<Selectable> withConnectedLines(Collection<Selectable> selectables) {
+        LinkedIdentitySet<Selectable> things = new LinkedIdentitySet<>();
+        things.addAll(selectables);
+        for (Selectable s : selectables) {
+            if (s instanceof Node) {
+                things.addAll(((Node)s).getLinesConnected());
+            }
+        }
+        return new ArrayList<>(things);
+    }
+
     /**
      * Make a new flowchart window
      */
@@ -169,7 +207,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      */
     public void copySelected() {
         if (!selectionManager.getSelected().isEmpty()) {
-            dragManager.setStuffInClipboard(selectionManager.getSelected());
+            dragManager.setStuffInClipboard(withConnectedLines(selectionManager.getSelected()));
         }
     }
 
@@ -180,16 +218,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
         if (!selectionManager.getSelected().isEmpty()) {
             ArrayList<Selectable> oldClipboard = new ArrayList<>();
             oldClipboard.addAll(dragManager.getClipboard());
-            ArrayList<Selectable> deletedThings = new ArrayList<>();
-            deletedThings.addAll(selectionManager.getSelected());
-
-            // add a nodeline to the deleted list of it's parent and child are being deleted too
-            for (NodeLine nl : window.getFlowchart().getNodeLines()) {
-                if (!deletedThings.contains(nl) && (deletedThings.contains(nl.getChild()) || 
-                        deletedThings.contains(nl.getParent()))) {
-                    deletedThings.add(nl);
-                }
-            }
+            ArrayList<Selectable> deletedThings = withConnectedLines(selectionManager.getSelected());
             dragManager.setStuffInClipboard(deletedThings);
             selectionManager.removeSelectables(deletedThings);
             // add the cut action to hisotory
@@ -206,70 +235,70 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      */
     public void pasteClipboard() { 
         if (!dragManager.getClipboard().isEmpty()) {
-            // copy every node so it's all in the same order
-            // look through the original array, and connect lines
-            //    in the next array to match the original.
-            //    both the chil and parrent node in the line have to be
-            //    in the originally copied array to copy the line
+            // copy every node on the clipboard, keeping track of the copy
+            //    of each node by the ID of the original. Then copy every
+            //    line that goes from one copied node to another, hooking
+            //    the copy up to the copies of its nodes.
             // translate the entire copied array slightly to offset it
             ArrayList<Node> pastedNodes = new ArrayList<>();
+            ArrayList<NodeLine> pastedLines = new ArrayList<>();
+            HashMap<Integer, Node> copies = new HashMap<>();
+            ArrayList<Selectable> clipboard = dragManager.getClipboard();
             
             // clone in the nodes
-            for (int i=0; i<dragManager.getClipboard().size(); i++) {
-                if (dragManager.getClipboard().get(i) instanceof Node) {
-                    pastedNodes.add((Node)(((Node)dragManager.getClipboard().get(i)).clone()));
+            for (int i=0; i<clipboard.size(); i++) {
+                if (clipboard.get(i) instanceof Node) {
+                    Node original = (Node)clipboard.get(i);
+                    Node copy = (Node)original.clone();
+                    pastedNodes.add(copy);
+                    copies.put(original.getId(), copy);
                 }
             }
             
-            // clone in the node lines if the parent and child nodes of the line are in the pasted array
-            for (int i=0; i<pastedNodes.size(); i++) {
-                // copy the array of the original lines from the original array
-                ArrayList<NodeLine> linesConnected = ((Node)(dragManager.getClipboard().get(i))).getLinesConnected();
-                for (int l=0; l<linesConnected.size(); l++) {
-                    int childIndex = -1;
-                    int parentIndex = -1;
-                    // find the location of the child in the original array for the original line
-                    for (int n=0; n<dragManager.getClipboard().size(); n++) {
-                        if (dragManager.getClipboard().get(n) == linesConnected.get(l).getChild()) {
-                            childIndex = n;
-                        } else if (dragManager.getClipboard().get(n) == linesConnected.get(l).getParent()) {
-                            parentIndex = n;
-                        }
-                        // finish early if both parent and child are found
-                        if (parentIndex != -1 && childIndex != -1) {
-                            break;
-                        }
-                    }
-                    
-                    // if the child was found in the original array then add the new 
-                    //  line using the same (copy) of the parent and childs
-                    if (childIndex != -1 && parentIndex != -1) {
-                        NodeLine clonedLine = (NodeLine)(linesConnected.get(l).clone());
-                        clonedLine.setParent(pastedNodes.get(parentIndex));
-                        clonedLine.setChild(pastedNodes.get(childIndex));
-                        pastedNodes.get(parentIndex).getLinesConnected().add(clonedLine);
-                        pastedNodes.get(childIndex).getLinesConnected().add(clonedLine);
-                    }
+            // clone in the node lines if the parent and child nodes of the line are in the pasted array.
+            //    Cut nodes are no longer connected to anything, so their
+            //    lines are taken from the clipboard, where the cut put them
+            LinkedIdentitySet<NodeLine> originalLines = new LinkedIdentitySet<>();
+            for (int i=0; i<clipboard.size(); i++) {
+                if (clipboard.get(i) instanceof Node) {
+                    originalLines.addAll(((Node)clipboard.get(i)).getLinesConnected());
+                } else if (clipboard.get(i) instanceof NodeLine) {
+                    originalLines.add((NodeLine)clipboard.get(i));
+                }
+            }
+            for (NodeLine original : originalLines) {
+                Node parentCopy = copies.get(original.getParent().getId());
+                Node childCopy = copies.get(original.getChild().getId());
+                if (parentCopy != null && childCopy != null) {
+                    NodeLine clonedLine = (NodeLine)(original.clone());
+                    clonedLine.setParent(parentCopy);
+                    clonedLine.setChild(childCopy);
+                    pastedLines.add(clonedLine);
                 }
             }
             
+            selectionManager.beginUpdate();
             selectionManager.clearSelection();
             
             // add everything to the flowchart, translating slightly, and selecting them
             for (int i=0; i<pastedNodes.size(); i++) {
-                window.getFlowchart().getNodes().add(pastedNodes.get(i));
-                pastedNodes.get(i).setX(pastedNodes.get(i).getX() + 30);
-                pastedNodes.get(i).setY(pastedNodes.get(i).getY() + 30);
+                window.getFlowchart().addNode(pastedNodes.get(i));
+            }
+            for (NodeLine nl : pastedLines) {
+                window.getFlowchart().connect(nl);
+            }
+            for (int i=0; i<pastedNodes.size(); i++) {
+                pastedNodes.get(i).setLocation(pastedNodes.get(i).getX() + 30,
+                        pastedNodes.get(i).getY() + 30);
                 
                 // select the newly added nodes and their connected lines
                 selectionManager.select(pastedNodes.get(i));
                 for (NodeLine nl : pastedNodes.get(i).getLinesConnected())
                     selectionManager.select(nl);
             }
+            selectionManager.endUpdate();
             
-            ArrayList<Selectable> pastedThings = new ArrayList<>();
-            pastedThings.addAll(pastedNodes);
-            historyManager.addToHistory(new Pasted(pastedThings));
+            historyManager.addToHistory(new Pasted(pastedNodes));
         }
     }
     
@@ -277,18 +306,16 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * Select everything in the flowchart
      */
     public void selectAll() {
-        ArrayList<Selectable> currentSelection = new ArrayList<>();
+        LinkedIdentitySet<Selectable> currentSelection = new LinkedIdentitySet<>();
         currentSelection.addAll(selectionManager.getSelected());
         
+        ArrayList<Selectable> everything = new ArrayList<>();
+        everything.addAll(window.getFlowchart().getNodes());
+        everything.addAll(window.getFlowchart().getNodeLines());
+        selectionManager.beginUpdate();
         selectionManager.clearSelection();
-        for (int i = 0; i < window.getFlowchart().getNodes().size(); i++) {
-            if (!selectionManager.getSelected().contains(window.getFlowchart().getNodes().get(i))) {
-                selectionManager.select(window.getFlowchart().getNodes().get(i));
-            }
-        }
-        for (int i = 0; i < window.getFlowchart().getNodeLines().size(); i++) {
-            selectionManager.select(window.getFlowchart().getNodeLines().get(i));
-        }
+        selectionManager.select(everything);
+        selectionManager.endUpdate();
         
         // make a list of all the things newly added to the selection
         ArrayList<Selectable> newlySelected = new ArrayList<>();
@@ -325,28 +352,22 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
             if (!selectedNode.getLinesConnected().isEmpty()) {
                 Node nextNode = null;
                 if (!previous) { // find the next child if shift was being held down
-                    for (int i = 0; i < selectedNode.getLinesConnected().size(); i++) {
-                        if (selectedNode.getLinesConnected().get(i).getChild() != selectedNode
-                                && selectedNode.getLinesConnected().get(i).getChild() != null) {
-                            nextNode = selectedNode.getLinesConnected().get(i).getChild();
-                            break;
-                        }
+                    if (!selectedNode.getOutgoingLines().isEmpty()) {
+                        nextNode = selectedNode.getOutgoingLines().get(0).getChild();
                     }
                 } else { // if shift is being held down then find the next parent
-                    for (int i = 0; i < selectedNode.getLinesConnected().size(); i++) {
-                        if (selectedNode.getLinesConnected().get(i).getParent() != selectedNode
-                                && selectedNode.getLinesConnected().get(i).getParent() != null) {
-                            nextNode = selectedNode.getLinesConnected().get(i).getParent();
-                            break;
-                        }
+                    if (!selectedNode.getIncomingLines().isEmpty()) {
+                        nextNode = selectedNode.getIncomingLines().get(0).getParent();
                     }
                 }
 
                 // if you found the next node, select it
                 if (nextNode != null) {
                     nextNodeIsThere = true;
+                    selectionManager.beginUpdate();
                     selectionManager.clearSelection();
                     selectionManager.select(nextNode);
+                    selectionManager.endUpdate();
                 }
             }
 
@@ -356,16 +377,16 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                 // position it to the right of the previously selected node
                 createdNode.setX(selectedNode.getX() + selectedNode.getWidth() + 120);
                 createdNode.setY(selectedNode.getY());
-                createdNode.getLinesConnected().clear();
-                window.getFlowchart().getNodes().add(createdNode);
+                window.getFlowchart().addNode(createdNode);
                 // connect the two nodes with a line
                 NodeLine line = new NodeLine(selectedNode, createdNode);
-                createdNode.getLinesConnected().add(line);
-                selectedNode.getLinesConnected().add(line);
+                window.getFlowchart().connect(line);
                 dragManager.setNewlyMadeNode(createdNode);
                 // select your newly created node
+                selectionManager.beginUpdate();
                 selectionManager.clearSelection();
                 selectionManager.select(createdNode);
+                selectionManager.endUpdate();
                 // add creating a node through tabbing to history
                 historyManager.addToHistory((new CreatedConnectedNodeTabbed(createdNode, line, initialSelected)));
             } else {
@@ -458,31 +479,15 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
      * Transform the camera so the entire flowchart fits in view of the window
      */
     public void fitFlowchartToView() {
-        ArrayList<Node> nodes = window.getFlowchart().getNodes();
-        // find the bounds of the entire flowchart in world units
-        float smallestX = nodes.get(0).getX(); // world units
-        float smallestY = nodes.get(0).getY(); // world units
-        float largestX = nodes.get(0).getX() + nodes.get(0).getWidth(); // world units
-        float largestY = nodes.get(0).getY() + nodes.get(0).getHeight(); // world units
-        
-        // search through all the nodes, finding the smallest and largest bounds...
-        for (int i=1; i<nodes.size(); i++) {
-            if (nodes.get(i).getX() < smallestX) {
-                smallestX = nodes.get(i).getX();
-            }
-            
-            if (nodes.get(i).getY() < smallestY) {
-                smallestY = nodes.get(i).getY();
-            }
-            
-            if (nodes.get(i).getX() + nodes.get(i).getWidth() > largestX) {
-                largestX = nodes.get(i).getX() + nodes.get(i).getWidth();
-            }
-            
-            if (nodes.get(i).getY() + nodes.get(i).getHeight() > largestY) {
-                largestY = nodes.get(i).getY() + nodes.get(i).getHeight();
-            }
+        Flowchart flowchart = window.getFlowchart();
+        if (flowchart.getNodes().isEmpty()) {
+            return;
         }
+        // the bounds of the entire flowchart in world units
+        float smallestX = flowchart.getX(); // world units
+        float smallestY = flowchart.getY(); // world units
+        float largestX = flowchart.getX() + flowchart.getWidth(); // world units
+        float largestY = flowchart.getY() + flowchart.getHeight(); // world units
         
         float padding = 30; // world units of padding
         // add the padding to the bounds
@@ -536,7 +541,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
     public void createNode() {
         // add a shape, placing it in the center of the screen
         Node node = new Node(0, 0);
-        window.getFlowchart().getNodes().add(node);
+        window.getFlowchart().addNode(node);
         
         // get the center of the screen in world coordinates
         float centerX = window.getCamera().convertCanvasToWorldX(
@@ -656,13 +661,22 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
     
     @Override
     public void keyTyped(KeyEvent e) {
+        // typing only changes the thing being typed in, so only it needs to
+        // be redrawn unless the selection changes too
+        Selectable redrawOnly = null;
 
         // if you're selecting soemthing that you aren't holding alt or control (for a different action)
         if (selectionManager.getLastSelected() != null && !e.isAltDown() && !e.isControlDown()) {
             if (selectionManager.getSelected().size() > 1) {
                 Selectable lastSelected = selectionManager.getLastSelected();
+                selectionManager.beginUpdate();
                 selectionManager.clearSelection();
                 selectionManager.select(lastSelected);
+                selectionManager.endUpdate();
+            } else {
+                redrawOnly = selectionManager.getLastSelected();
+                // redraw where the text was before it changes
+                window.redrawSelectable(redrawOnly);
             }
 
             // if a TAB key was typed
@@ -783,7 +797,12 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
             }
         }
 
-        window.redrawView();
+        if (redrawOnly != null) {
+            window.redrawSelectable(redrawOnly);
+        } else {
+            window.redrawView();
+        }
+        updateCursorBlinking();
     }
 
     @Override
@@ -870,14 +889,17 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                 }
                 break;
             case KeyEvent.VK_LEFT:
+                window.redrawTypeCursor();
                 textTypeManager.decrementLocationOfTypeCursor();
-                window.redrawView();
+                window.redrawTypeCursor();
                 break;
             case KeyEvent.VK_RIGHT:
+                window.redrawTypeCursor();
                 textTypeManager.incrementLocationOfTypeCursor();
-                window.redrawView();
+                window.redrawTypeCursor();
                 break;
         }
+        updateCursorBlinking();
     }
 
     @Override
@@ -948,12 +970,10 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                     }
                     createdNode.setX(dragManager.getInitialX());
                     createdNode.setY(dragManager.getInitialY());
-                    createdNode.getLinesConnected().clear();
-                    window.getFlowchart().getNodes().add(createdNode);
+                    window.getFlowchart().addNode(createdNode);
                     // connect the two nodes with a line
                     NodeLine line = new NodeLine(node, createdNode);
-                    createdNode.getLinesConnected().add(line);
-                    node.getLinesConnected().add(line);
+                    window.getFlowchart().connect(line);
                     createdNode.setInnerText("");
                     dragManager.setNewlyMadeNode(createdNode);
                     dragManager.setRightMouseDown(true);
@@ -962,20 +982,24 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
             }
 
             if (e.getButton() == MouseEvent.BUTTON1) {
-                if (!selectionManager.getSelected().contains(clickedOnThing)) {
+                if (!selectionManager.isSelected(clickedOnThing)) {
+                    selectionManager.beginUpdate();
                     if (!e.isShiftDown()) {
                         selectionManager.clearSelection();
                     }
                     selectionManager.select(clickedOnThing);
+                    selectionManager.endUpdate();
                     //record that this was added to the selection
                     historyManager.addToHistory(new Selected(clickedOnThing));
                 }
                 
-                if (selectionManager.getSelectedNodes().contains(node)) {
+                if (selectionManager.isSelected(node)) {
                     // if shift was not held down, only select and transform the clicked on node
                     if (!e.isShiftDown()) {
+                        selectionManager.beginUpdate();
                         selectionManager.clearSelection();
                         selectionManager.select(node);
+                        selectionManager.endUpdate();
                     }
                     dragManager.startDragMove(mousePosition.x, mousePosition.y);
                     dragManager.setLeftMouseDown(true);
@@ -984,11 +1008,13 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                 }
             }
         } else if (nodeLine != null) { // actions only for node lines
-            if (!selectionManager.getSelected().contains(clickedOnThing)) {
+            if (!selectionManager.isSelected(clickedOnThing)) {
+                selectionManager.beginUpdate();
                 if (!e.isShiftDown()) {
                     selectionManager.clearSelection();
                 }
                 selectionManager.select(clickedOnThing);
+                selectionManager.endUpdate();
                 // record that it was added to the selection
                 historyManager.addToHistory(new Selected(clickedOnThing));
             }
@@ -1039,6 +1065,7 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
         }
         
         window.redrawView();
+        updateCursorBlinking();
     }
 
     /**
@@ -1134,18 +1161,21 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
     }
 
     /**
-     * Searches through all nodes and finds one that the mouse is close enough
-     * to do a resize operation on.
+     * Searches through the nodes near the mouse and finds one that the mouse
+     * is close enough to do a resize operation on.
      *
      * @param mx the x position of the mouse in world coordinates.
      * @param my the y position of the mouse in world coordinates.
-     * @return the first found node that is able to be resized by the mouse's
+     * @return the top-most node that is able to be resized by the mouse's
      * current position.
      */
     private Node findNodeCloseEnoughForResize(float mx, float my) {
-        for (Node checking : window.getFlowchart().getNodes()) {
-            if (closeEnoughForResize(mx, my, checking)) {
-                return checking;
+        List<Node> nearby = window.getFlowchart().getNodesInArea(
+                mx - DRAG_RESIZE_DISTANCE, my - DRAG_RESIZE_DISTANCE,
+                DRAG_RESIZE_DISTANCE * 2, DRAG_RESIZE_DISTANCE * 2);
+        for (int i = nearby.size() - 1; i >= 0; i--) {
+            if (closeEnoughForResize(mx, my, nearby.get(i))) {
+                return nearby.get(i);
             }
         }
         return null;
@@ -1161,16 +1191,14 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                 if (dragManager.getNewlyMadeNode().getStyle().getShape() == Shape.NONE)  {
                     Node guideNode = dragManager.getNewlyMadeNode();
                     NodeLine connection = guideNode.getLinesConnected().get(0);
-                    // remove the guide node
-                    window.getFlowchart().getNodes().remove(guideNode);
+                    // remove the guide node, which also takes its line out of the flowchart
+                    window.removeNode(guideNode);
                     Selectable select = selectionManager.getSelectableUnderPoint(mousePosition);
                     if (select != null && select != connection.getParent() && select instanceof Node) {
                         connection.setChild((Node)select);
-                        ((Node)select).getLinesConnected().add(connection);
+                        window.getFlowchart().connect(connection);
                         // record that a connection was mad
                         historyManager.addToHistory(new ConnectedNodes(connection));
-                    } else {
-                        connection.getParent().getLinesConnected().remove(connection);
                     }
                 } else {
                     historyManager.addToHistory(new CreatedConnectedNode(
@@ -1189,6 +1217,9 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                 }
                 dragManager.endDragResize();
                 window.defaultCursor();
+                hoverEdge = EDGE_NONE;
+                // keep showing a resize cursor if the mouse is still on an edge
+                updateHoverCursor(mousePosition);
             }
             if (dragManager.isDragMoving()) {
                 // record the moving of nodes to history if it did move
@@ -1208,30 +1239,34 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                     new Point((int) dragManager.getInitialX(), (int) dragManager.getInitialY()),
                     dragManager.getOffsetX(), dragManager.getOffsetY());
             // clear selection
+            selectionManager.beginUpdate();
             if (!e.isShiftDown()) {
                 selectionManager.clearSelection();
             }
             // make a list of all the things newly selected
             ArrayList<Selectable> addedToSelection = new ArrayList<>();
             for (int i = 0; i < selectedItems.size(); i++) {
-                if (!selectionManager.getSelected().contains(selectedItems.get(i))) {
+                if (!selectionManager.isSelected(selectedItems.get(i))) {
                     addedToSelection.add(selectedItems.get(i));
                 }
             }
             
             selectionManager.select(addedToSelection);
+            selectionManager.endUpdate();
             
             // record the newly selected items only if there was anything newly selected
             if (!addedToSelection.isEmpty()) {
                 historyManager.addToHistory(new Selected(addedToSelection));
             }
             
+            boxSelectPreview.clear();
             dragManager.setBoxSelecting(false);
             dragManager.setDragging(false);
             dragManager.setLeftMouseDown(false);
             window.getCamera().unlock();
         }
         window.redrawView();
+        updateCursorBlinking();
     }
 
     @Override
@@ -1245,13 +1280,14 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
     @Override
     public void mouseDragged(MouseEvent e) {
         if (dragManager.isDragging()) {
+            // redraw where everything being dragged was before it moves
+            redrawDragged();
             Point.Float mousePos = window.getCamera().convertCanvasToWorld(e.getPoint());
             dragManager.setOffsetX((int) mousePos.getX() - dragManager.getInitialX());
             dragManager.setOffsetY((int) mousePos.getY() - dragManager.getInitialY());
 
             if (dragManager.isRightMouseDown() && dragManager.getNewlyMadeNode() != null) {
-                dragManager.getNewlyMadeNode().setX((int) mousePos.getX());
-                dragManager.getNewlyMadeNode().setY((int) mousePos.getY());
+                dragManager.getNewlyMadeNode().setLocation((int) mousePos.getX(), (int) mousePos.getY());
             } else if (dragManager.isLeftMouseDown()) {
                 if (dragManager.isDragMoving()) {
                     dragManager.updateDragMove(mousePos.x, mousePos.y);
@@ -1259,14 +1295,97 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
                     dragManager.updateDragResize(mousePos.x, mousePos.y);
                 }
             }
+            if (dragManager.isBoxSelecting()) {
+                // show what will be selected when the mouse is let go
+                window.redrawNodeOutlines(boxSelectPreview.update(window.getFlowchart(),
+                        dragManager.getInitialX(), dragManager.getInitialY(),
+                        dragManager.getOffsetX(), dragManager.getOffsetY()));
+            }
+            // and where it is now
+            redrawDragged();
         }
+    }
 
-        window.redrawView();
+    /**
+     * Redraws the part of the view covered by what is being dragged around,
+     * which is either the nodes being moved or resized, the newly made
+     * node, or the selection box.
+     */
+    private void redrawDragged() {
+        if (dragManager.isBoxSelecting()) {
+            Rectangle box = window.getSelectionBox();
+            if (box != null) {
+                // make room for the width of the box outline
+                box.grow(1, 1);
+                window.redrawOverlay(box);
+            }
+        }
+        if (dragManager.isRightMouseDown() && dragManager.getNewlyMadeNode() != null) {
+            window.redrawSelectable(dragManager.getNewlyMadeNode());
+        } else if (dragManager.isLeftMouseDown()) {
+            if (dragManager.isDragMoving()) {
+                window.redrawSelectables(Arrays.asList(dragManager.getMoveDraggingNodesArray()));
+            } else if (dragManager.isDragResizing()) {
+                window.redrawSelectable(dragManager.getResizingNode());
+            }
+        }
     }
 
     @Override
     public void mouseMoved(MouseEvent e) {
+        updateHoverCursor(window.getCamera().convertCanvasToWorld(e.getPoint()));
+    }
 
+    /**
+     * Shows a resize cursor while the mouse is over an edge of a node that
+     * can be dragged to resize it, and the default cursor otherwise. The
+     * cursor is only changed when the mouse moves onto or off of an edge.
+     * @param mousePosition the position of the mouse, in world coordinates.
+     */
+    private void updateHoverCursor(Point.Float mousePosition) {
+        int edge = EDGE_NONE;
+        Node resizing = findNodeCloseEnoughForResize(mousePosition.x, mousePosition.y);
+        if (resizing != null) {
+            // check the edges in the same order as starting a resize does
+            if (canResizeLeft(mousePosition.x, mousePosition.y, resizing)) {
+                edge = EDGE_LEFT;
+            } else if (canResizeTop(mousePosition.x, mousePosition.y, resizing)) {
+                edge = EDGE_TOP;
+            } else if (canResizeBottom(mousePosition.x, mousePosition.y, resizing)) {
+                edge = EDGE_BOTTOM;
+            } else if (canResizeRight(mousePosition.x, mousePosition.y, resizing)) {
+                edge = EDGE_RIGHT;
+            }
+        }
+        if (edge == hoverEdge) {
+            return;
+        }
+        hoverEdge = edge;
+        switch (edge) {
+            case EDGE_LEFT:
+                window.resizeLeftCursor();
+                break;
+            case EDGE_TOP:
+                window.resizeTopCursor();
+                break;
+            case EDGE_BOTTOM:
+                window.resizeBottomCursor();
+                break;
+            case EDGE_RIGHT:
+                window.resizeRightCursor();
+                break;
+            default:
+                window.defaultCursor();
+                break;
+        }
+    }
+
+    /**
+     * Get the nodes inside of the box being dragged out to select things.
+     * @return the box select preview used by this event manager
+     */
+    public BoxSelectPreview getBoxSelectPreview() {
+        return boxSelectPreview;
     }
 
     /**
@@ -1280,7 +1399,34 @@ public class EventManager implements KeyListener, MouseListener, MouseMotionList
     @Override
     public void booleanSwitch(boolean value) {
         textTypeManager.setCursorShowing(value);
-        window.redrawView();
+        window.redrawTypeCursor();
+    }
+
+    @Override
+    public boolean isBlinking() {
+        // only blink while something can be typed in
+        return window.getView().isFocusOwner() && selectionManager.getLastSelected() != null;
+    }
+
+    @Override
+    public void focusGained(FocusEvent e) {
+        updateCursorBlinking();
+    }
+
+    @Override
+    public void focusLost(FocusEvent e) {
+        // hide the cursor until the view has focus again
+        textTypeManager.setCursorShowing(false);
+        window.redrawTypeCursor();
+        updateCursorBlinking();
+    }
+
+    /**
+     * Starts or stops blinking the text cursor if something started or
+     * stopped being typed in.
+     */
+    private void updateCursorBlinking() {
+        window.getFlowchartWindowManager().getCursorBlinker().update();
     }
     
     /**
@@ -21,14 +21,16 @@ package bropals.processsketcher;
 
 import bropals.processsketcher.data.BinaryUtil;
 import bropals.processsketcher.data.Flowchart;
+import bropals.processsketcher.data.GraphSnapshot;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
 import bropals.processsketcher.data.Selectable;
 import static bropals.processsketcher.icons.IconManager.getIcon;
 import bropals.processsketcher.listeners.*;
 import bropals.processsketcher.style.LineType;
+import bropals.processsketcher.style.NodeImageCache;
 import bropals.processsketcher.style.Shape;
-import bropals.processsketcher.util.BooleanBlinker;
+import bropals.processsketcher.style.TextLayoutCache;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
@@ -36,10 +38,14 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.PrinterJob;
@@ -49,6 +55,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
 import javax.swing.DefaultComboBoxModel;
@@ -108,7 +118,38 @@ public class FlowchartWindow extends JFrame {
     private JTabbedPane buttonPanel;
     private JComponent view;
     private Camera camera;
-    private Thread blinkThread;
+    /**
+     * Keeps images of the nodes so they don't have to be drawn from
+     * scratch every time the view is painted.
+     */
+    private final NodeImageCache nodeImageCache;
+    /**
+     * Keeps the layouts of the text of the nodes and lines so they don't
+     * have to be measured every time the view is painted.
+     */
+    private final TextLayoutCache textLayoutCache;
+    /**
+     * The nodes and lines of the flowchart as they were last drawn in the
+     * view, without the selection or the text cursor.
+     */
+    private BufferedImage chartLayer;
+    /**
+     * The part of the chart layer that has to be drawn again before it is
+     * used, or <code>null</code> if all of it is up to date.
+     */
+    private Rectangle chartLayerDamage;
+    /**
+     * Where the camera was when the chart layer was last drawn.
+     */
+    private float chartLayerZoom, chartLayerX, chartLayerY;
+    /**
+     * The farthest that a node or line has been measured to stick out of
+     * the box it is found by in the flowchart, such as text that does not
+     * fit in a node or the text of a line. The part that grows with the
+     * text is kept in world units, and the part that stays the same size
+     * on the canvas, such as borders, is kept in canvas units.
+     */
+    private float overflowWorld, overflowCanvas;
     /*
      The mudball of GUI elements
      */
@@ -203,16 +244,20 @@ public class FlowchartWindow extends JFrame {
         buttonPanel = new JTabbedPane();
         buttonPanel.setPreferredSize(new Dimension(400, 125));
         camera = new Camera();
+        textLayoutCache = new TextLayoutCache();
+        nodeImageCache = new NodeImageCache(textLayoutCache);
+        measureFlowchart();
         view = new JComponent() {
             @Override
             public void paintComponent(Graphics g) {
-                paintFlowchart(g, true);
+                paintView(g);
             }
         };
         formatTabs();
         view.addMouseListener(eventManager);
         view.addKeyListener(eventManager);
         view.addMouseMotionListener(eventManager);
+        view.addFocusListener(eventManager);
         cameraControls = new CameraControls(camera, this);
         view.addMouseMotionListener(cameraControls);
         view.addKeyListener(cameraControls);
@@ -232,67 +277,171 @@ public class FlowchartWindow extends JFrame {
         view.setFocusTraversalKeysEnabled(false);
         view.setBackground(Color.WHITE);
 
-        BooleanBlinker blinker = new BooleanBlinker(280); // for the blinking in the cursor
-        blinker.addListener(eventManager);
-        blinkThread = new Thread(blinker);
+        // for the blinking in the cursor
+        flowchartWindowManager.getCursorBlinker().addListener(eventManager);
         revalidate();
-
-        blinkThread.start();
     }
 
     /**
      * Redraw the flowchart editor view.
      */
     public void redrawView() {
+        chartLayerDamage = new Rectangle(0, 0, view.getWidth(), view.getHeight());
         view.repaint();
     }
 
     /**
-     * The paint function for the flowchart editor view.
+     * Redraw only the part of the flowchart editor view that a node or line
+     * covers. The lines connected to a node are redrawn with it since they
+     * follow it around. To move or change something, call this both before
+     * and after the change so both where it was and where it is now get
+     * redrawn.
      *
-     * @param g the graphics context to draw with.
-     * @param showSelection if the selected object should have a box around it.
+     * @param selectable the node or line to redraw.
      */
-    public void paintFlowchart(Graphics g, boolean showSelection) {
-        // draw the background
-        g.setColor(view.getBackground());
-        g.fillRect(0, 0, view.getWidth(), view.getHeight());
-        // the color used for showing that something is selected
-        Color selectionColor = Color.RED;
-        for (Node n : flowchart.getNodes()) {
-            n.getStyle().getShape().renderShape(n, camera, g,
-                    showSelection && (n == eventManager.getSelectionManager().getLastSelected() && eventManager.getTextTypeManager().isCursorShowing()),
-                    eventManager.getTextTypeManager().getLocationOfTypeCursor(), view.getBackground());
-            if (eventManager.isSelected(n) && showSelection) {
-                // draw the box around the node if it's being selected
-                g.setColor(selectionColor);
-                float offset = camera.convertWorldToCanvasLength(3); // for the selection box
-                Point topLeftCorner = camera.convertWorldToCanvas(new Point.Float(n.getX(), n.getY()));
-                g.drawRect((int) (topLeftCorner.getX() - offset),
-                        (int) (topLeftCorner.getY() - offset),
-                        (int) (n.getWidth() / camera.getZoom() + (2 * offset)),
-                        (int) (n.getHeight() / camera.getZoom() + (2 * offset)));
-            }
-            for (NodeLine nl : n.getLinesConnected()) {
-                Point[] linePoints = nl.getStyle().getType().renderLine(nl, camera, g,
-                        nl == eventManager.getSelectionManager().getLastSelected() && eventManager.getTextTypeManager().isCursorShowing(),
-                        eventManager.getTextTypeManager().getLocationOfTypeCursor(), eventManager.getTextTypeManager().getLinePartTyping());
-                if (eventManager.isSelected(nl) && showSelection) {
-                    g.setColor(selectionColor);
-                    float offset = camera.convertWorldToCanvasLength(3);
-                    g.drawLine((int) (linePoints[0].getX() + offset),
-                            (int) (linePoints[0].getY() + offset),
-                            (int) (linePoints[1].getX() + offset),
-                            (int) (linePoints[1].getY() + offset));
-                    g.drawLine((int) (linePoints[0].getX() - offset),
-                            (int) (linePoints[0].getY() - offset),
-                            (int) (linePoints[1].getX() - offset),
-                            (int) (linePoints[1].getY() - offset));
+    public void redrawSelectable(Selectable selectable) {
+        redrawSelectables(Collections.singletonList(selectable));
+    }
+
+    /**
+     * Redraw only the part of the flowchart editor view that some nodes and
+     * lines cover, along with the lines connected to the nodes.
+     *
+     * @param selectables the nodes and lines to redraw.
+     */
+    public void redrawSelectables(Collection<? extends Selectable> selectables) {
+        Graphics g = view.getGraphics();
+        if (g == null) {
+            // there is nothing to measure the text with until the view is showing
+            redrawView();
+            return;
+        }
+        Rectangle area = null;
+        try {
+            for (Selectable s : selectables) {
+                if (s instanceof Node) {
+                    Node n = (Node) s;
+                    area = addToArea(area, getCanvasBounds(n, camera, g));
+                    for (NodeLine nl : n.getLinesConnected()) {
+                        area = addToArea(area, getCanvasBounds(nl, camera, g));
+                    }
+                } else if (s instanceof NodeLine) {
+                    NodeLine nl = (NodeLine) s;
+                    area = addToArea(area, getCanvasBounds(nl, camera, g));
                 }
             }
+        } finally {
+            g.dispose();
         }
+        if (area != null) {
+            // leave room for the selection box
+            int offset = camera.convertWorldToCanvasLength(3) + 2;
+            area.grow(offset, offset);
+            redrawCanvasArea(area);
+        }
+    }
 
-        // draw the box for the selection
+    /**
+     * Redraw only part of the flowchart editor view, including the nodes and
+     * lines in it.
+     *
+     * @param area the area to redraw, in canvas coordinates. Nothing is
+     * redrawn if it is <code>null</code>.
+     */
+    public void redrawCanvasArea(Rectangle area) {
+        if (area != null) {
+            chartLayerDamage = addToArea(chartLayerDamage, new Rectangle(area));
+            view.repaint(area.x, area.y, area.width, area.height);
+        }
+    }
+
+    /**
+     * Redraw only what is drawn on top of the nodes and lines in part of the
+     * flowchart editor view, which is the selection, the text cursor and the
+     * selection box. Use this when the flowchart itself did not change.
+     *
+     * @param area the area to redraw, in canvas coordinates. Nothing is
+     * redrawn if it is <code>null</code>.
+     */
+    public void redrawOverlay(Rectangle area) {
+        if (area != null) {
+            view.repaint(area.x, area.y, area.width, area.height);
+        }
+    }
+
+    /**
+     * Redraw the boxes drawn around some nodes to show that they are
+     * selected, without redrawing the nodes themselves.
+     *
+     * @param nodes the nodes whose boxes are redrawn.
+     */
+    public void redrawNodeOutlines(Collection<Node> nodes) {
+        float offset = camera.convertWorldToCanvasLength(3);
+        Rectangle area = null;
+        for (Node n : nodes) {
+            area = addToArea(area, getNodeOutline(n, offset));
+        }
+        if (area != null) {
+            // make room for the width of the outline
+            area.grow(1, 1);
+            redrawOverlay(area);
+        }
+    }
+
+    /**
+     * Redraw the text cursor in whatever is being typed in. To move the
+     * cursor, call this both before and after moving it.
+     */
+    public void redrawTypeCursor() {
+        Selectable typing = eventManager.getSelectionManager().getLastSelected();
+        if (typing == null) {
+            return;
+        }
+        Graphics g = view.getGraphics();
+        if (g == null) {
+            return;
+        }
+        Rectangle cursor = null;
+        try {
+            if (typing instanceof Node) {
+                Node n = (Node) typing;
+                cursor = n.getStyle().getShape().getTypeCursorBounds(n, camera, g, textLayoutCache,
+                        eventManager.getTextTypeManager().getLocationOfTypeCursor());
+            } else if (typing instanceof NodeLine) {
+                NodeLine nl = (NodeLine) typing;
+                cursor = nl.getStyle().getType().getTypeCursorBounds(nl, camera, g, textLayoutCache,
+                        eventManager.getTextTypeManager().getLocationOfTypeCursor(),
+                        eventManager.getTextTypeManager().getLinePartTyping());
+            }
+        } finally {
+            g.dispose();
+        }
+        redrawOverlay(cursor);
+    }
+
+    /**
+     * Adds a rectangle to an area that is going to be redrawn.
+     *
+     * @param area the area so far, or <code>null</code> if there isn't one yet.
+     * @param bounds the rectangle to add.
+     * @return the area with the rectangle added.
+     */
+    private Rectangle addToArea(Rectangle area, Rectangle bounds) {
+        if (area == null) {
+            return bounds;
+        }
+        area.add(bounds);
+        return area;
+    }
+
+    /**
+     * Gets the box being dragged out to select things, if it is big enough
+     * to be shown.
+     *
+     * @return the box in canvas coordinates, or <code>null</code> if no box
+     * is being shown.
+     */
+    public Rectangle getSelectionBox() {
         if (eventManager.getDragManager().isBoxSelecting()
                 && Math.abs(eventManager.getDragManager().getOffsetX()) > 3
                 && Math.abs(eventManager.getDragManager().getOffsetY()) > 3) {
@@ -308,11 +457,338 @@ public class FlowchartWindow extends JFrame {
             if (offsetY < 0) {
                 startY = startY + offsetY;
             }
-            if (showSelection) {
-                g.setColor(Color.BLUE);
-                g.drawRect(startX, startY, Math.abs(offsetX), Math.abs(offsetY));
+            return new Rectangle(startX, startY, Math.abs(offsetX), Math.abs(offsetY));
+        }
+        return null;
+    }
+
+    /**
+     * Paints the flowchart editor view. The nodes and lines come from the
+     * chart layer, which is only drawn again where the flowchart or the
+     * camera has changed, and the selection and the text cursor are drawn
+     * on top of it every time.
+     *
+     * @param g the graphics context to draw with.
+     */
+    private void paintView(Graphics g) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        // make the chart layer as big as the screen pixels it covers, so it
+        // stays sharp on screens that scale everything up
+        AffineTransform screen = ((Graphics2D) g).getTransform();
+        int layerWidth = (int) Math.ceil(width * screen.getScaleX());
+        int layerHeight = (int) Math.ceil(height * screen.getScaleY());
+        if (chartLayer == null || chartLayer.getWidth() != layerWidth || chartLayer.getHeight() != layerHeight) {
+            chartLayer = new BufferedImage(layerWidth, layerHeight, BufferedImage.TYPE_INT_RGB);
+            chartLayerDamage = new Rectangle(0, 0, width, height);
+        } else if (chartLayerZoom != camera.getZoom()
+                || chartLayerX != camera.getWorldLocationX()
+                || chartLayerY != camera.getWorldLocationY()) {
+            // everything moved if the camera moved
+            chartLayerDamage = new Rectangle(0, 0, width, height);
+        }
+        if (chartLayerDamage != null) {
+            Graphics2D layer = chartLayer.createGraphics();
+            layer.scale(screen.getScaleX(), screen.getScaleY());
+            layer.clip(chartLayerDamage);
+            paintChart(layer, true);
+            layer.dispose();
+            chartLayerDamage = null;
+            chartLayerZoom = camera.getZoom();
+            chartLayerX = camera.getWorldLocationX();
+            chartLayerY = camera.getWorldLocationY();
+        }
+        g.drawImage(chartLayer, 0, 0, width, height, null);
+        paintOverlay(g);
+    }
+
+    /**
+     * The paint function for the flowchart editor view.
+     *
+     * @param g the graphics context to draw with.
+     * @param showSelection if the selected object should have a box around it.
+     */
+    public void paintFlowchart(Graphics g, boolean showSelection) {
+        paintChart(g, showSelection);
+        if (showSelection) {
+            paintOverlay(g);
+        }
+    }
+
+    /**
+     * Paints the background and the nodes and lines of the flowchart,
+     * without anything that shows what is selected or being typed in.
+     *
+     * @param g the graphics context to draw with.
+     * @param useImageCache if nodes can be drawn from their cached images.
+     */
+    private void paintChart(Graphics g, boolean useImageCache) {
+        // draw the background
+        g.setColor(view.getBackground());
+        g.fillRect(0, 0, view.getWidth(), view.getHeight());
+        // only draw what is inside of the area being painted. There is no
+        // clip when drawing the whole flowchart to an image.
+        Rectangle clip = g.getClipBounds();
+        List<Node> visibleNodes;
+        Collection<NodeLine> visibleLines;
+        if (clip != null) {
+            Rectangle2D.Float visibleArea = getVisibleArea(clip);
+            visibleNodes = flowchart.getNodesInArea(visibleArea.x, visibleArea.y,
+                    visibleArea.width, visibleArea.height);
+            visibleLines = flowchart.getNodeLinesInArea(visibleArea.x, visibleArea.y,
+                    visibleArea.width, visibleArea.height);
+        } else {
+            visibleNodes = flowchart.getNodes();
+            visibleLines = flowchart.getNodeLines();
+        }
+        // draw the lines underneath the nodes, each line only once
+        for (NodeLine nl : visibleLines) {
+            if (clip != null && !getCanvasBounds(nl, camera, g).intersects(clip)) {
+                continue;
+            }
+            nl.getStyle().getType().renderLine(nl, camera, g, textLayoutCache, false, 0, 0);
+        }
+        for (Node n : visibleNodes) {
+            if (clip != null && !getCanvasBounds(n, camera, g).intersects(clip)) {
+                continue;
+            }
+            if (useImageCache) {
+                nodeImageCache.drawNode(n, camera, g, view.getBackground());
+            } else {
+                n.getStyle().getShape().renderShape(n, camera, g, textLayoutCache, false, 0, view.getBackground());
+            }
+        }
+    }
+
+    /**
+     * Paints what is drawn on top of the flowchart: the boxes around the
+     * selected nodes and lines and the nodes inside of the selection box,
+     * the text cursor and the selection box.
+     *
+     * @param g the graphics context to draw with.
+     */
+    private void paintOverlay(Graphics g) {
+        // the color used for showing that something is selected
+        Color selectionColor = Color.RED;
+        Rectangle clip = g.getClipBounds();
+        Rectangle2D.Float visibleArea = clip == null ? null : getVisibleArea(clip);
+        float offset = camera.convertWorldToCanvasLength(3); // for the selection box
+        SelectionManager selectionManager = eventManager.getSelectionManager();
+        Collection<Node> selectedNodes = selectionManager.getSelectedNodes();
+        Collection<NodeLine> selectedLines = selectionManager.getSelectedNodeLines();
+        if (visibleArea != null) {
+            // a small area, like the text cursor blinking, only has to look
+            // at the few nodes and lines in it instead of the whole selection
+            selectedNodes = getSelectedInArea(selectedNodes,
+                    flowchart.getNodesInArea(visibleArea.x, visibleArea.y, visibleArea.width, visibleArea.height));
+            selectedLines = getSelectedInArea(selectedLines,
+                    flowchart.getNodeLinesInArea(visibleArea.x, visibleArea.y, visibleArea.width, visibleArea.height));
+        }
+        g.setColor(selectionColor);
+        for (Node n : selectedNodes) {
+            if (visibleArea != null && !visibleArea.intersects(n.getX(), n.getY(), n.getWidth(), n.getHeight())) {
+                continue;
+            }
+            // draw the box around the node if it's being selected
+            Rectangle outline = getNodeOutline(n, offset);
+            g.drawRect(outline.x, outline.y, outline.width, outline.height);
+        }
+        for (NodeLine nl : selectedLines) {
+            if (visibleArea != null && !visibleArea.intersects(getArea(nl))) {
+                continue;
+            }
+            Point[] linePoints = nl.getStyle().getType().getCanvasEndPoints(nl, camera);
+            g.drawLine((int) (linePoints[0].getX() + offset),
+                    (int) (linePoints[0].getY() + offset),
+                    (int) (linePoints[1].getX() + offset),
+                    (int) (linePoints[1].getY() + offset));
+            g.drawLine((int) (linePoints[0].getX() - offset),
+                    (int) (linePoints[0].getY() - offset),
+                    (int) (linePoints[1].getX() - offset),
+                    (int) (linePoints[1].getY() - offset));
+        }
+
+        // draw the box around the nodes that a box select would select
+        g.setColor(selectionColor);
+        for (Node n : eventManager.getBoxSelectPreview().getNodes()) {
+            if (visibleArea != null && !visibleArea.intersects(n.getX(), n.getY(), n.getWidth(), n.getHeight())) {
+                continue;
+            }
+            Rectangle outline = getNodeOutline(n, offset);
+            g.drawRect(outline.x, outline.y, outline.width, outline.height);
+        }
+
+        // draw the text cursor in what is being typed in
+        Selectable typing = eventManager.getSelectionManager().getLastSelected();
+        if (typing != null && eventManager.getTextTypeManager().isCursorShowing()) {
+            if (typing instanceof Node) {
+                Node n = (Node) typing;
+                n.getStyle().getShape().renderTypeCursor(n, camera, g, textLayoutCache,
+                        eventManager.getTextTypeManager().getLocationOfTypeCursor());
+            } else if (typing instanceof NodeLine) {
+                NodeLine nl = (NodeLine) typing;
+                nl.getStyle().getType().renderTypeCursor(nl, camera, g, textLayoutCache,
+                        eventManager.getTextTypeManager().getLocationOfTypeCursor(),
+                        eventManager.getTextTypeManager().getLinePartTyping());
+            }
+        }
+
+        // draw the box for the selection
+        Rectangle selectionBox = getSelectionBox();
+        if (selectionBox != null) {
+            g.setColor(Color.BLUE);
+            g.drawRect(selectionBox.x, selectionBox.y, selectionBox.width, selectionBox.height);
+        }
+    }
+
+    /**
+     * Gets the selected nodes or lines that may be in an area, going through
+     * whichever of the selection and the things in the area is smaller.
+     *
+     * @param <T> the type of the nodes or lines.
+     * @param selected the selected nodes or lines.
+     * @param inArea the nodes or lines in the area.
+     * @return the nodes or lines that are both selected and in the area,
+     * or the whole selection if it is the smaller of the two.
+     */
+    private <T extends Selectable> Collection<T> getSelectedInArea(Collection<T> selected, List<T> inArea) {
+        if (selected.size() <= inArea.size()) {
+            return selected;
+        }
+        ArrayList<T> both = new ArrayList<>();
+        for (T s : inArea) {
+            if (selected.contains(s)) {
+                both.add(s);
             }
         }
+        return both;
+    }
+
+    /**
+     * Gets the box that is drawn around a node to show that it is selected.
+     *
+     * @param n the node.
+     * @param offset how far the box is from the edges of the node, in
+     * canvas units.
+     * @return the box, in canvas coordinates.
+     */
+    private Rectangle getNodeOutline(Node n, float offset) {
+        Point topLeftCorner = camera.convertWorldToCanvas(new Point.Float(n.getX(), n.getY()));
+        return new Rectangle((int) (topLeftCorner.getX() - offset),
+                (int) (topLeftCorner.getY() - offset),
+                (int) (n.getWidth() / camera.getZoom() + (2 * offset)),
+                (int) (n.getHeight() / camera.getZoom() + (2 * offset)));
+    }
+
+    /**
+     * Gets the part of the world that needs to be searched for the nodes
+     * and lines that are drawn in part of the view. This is bigger than
+     * the part of the view by the farthest that any node or line has been
+     * measured to stick out of its box.
+     *
+     * @param clip the part of the view being painted, in canvas coordinates.
+     * @return the part of the world to search, in world coordinates.
+     */
+    private Rectangle2D.Float getVisibleArea(Rectangle clip) {
+        Rectangle2D.Float visibleArea = camera.convertCanvasToWorld(clip);
+        float margin = overflowWorld + camera.convertCanvasToWorldLength(overflowCanvas);
+        visibleArea.setRect(visibleArea.x - margin, visibleArea.y - margin,
+                visibleArea.width + (2 * margin), visibleArea.height + (2 * margin));
+        return visibleArea;
+    }
+
+    /**
+     * Gets the area of the canvas that a node covers when it is drawn, and
+     * remembers how far it sticks out of the node.
+     *
+     * @param n the node.
+     * @param c the camera to measure the node with.
+     * @param g a graphics context to measure the text with.
+     * @return the area the node covers, in canvas coordinates.
+     */
+    private Rectangle getCanvasBounds(Node n, Camera c, Graphics g) {
+        Rectangle bounds = n.getStyle().getShape().getCanvasBounds(n, c, g, textLayoutCache);
+        measureOverflow(bounds, new Rectangle2D.Float(n.getX(), n.getY(), n.getWidth(), n.getHeight()), c);
+        return bounds;
+    }
+
+    /**
+     * Gets the area of the canvas that a line covers when it is drawn, and
+     * remembers how far it sticks out of the box around its nodes.
+     *
+     * @param nl the line.
+     * @param c the camera to measure the line with.
+     * @param g a graphics context to measure the text with.
+     * @return the area the line covers, in canvas coordinates.
+     */
+    private Rectangle getCanvasBounds(NodeLine nl, Camera c, Graphics g) {
+        Rectangle bounds = nl.getStyle().getType().getCanvasBounds(nl, c, g, textLayoutCache);
+        measureOverflow(bounds, getArea(nl), c);
+        return bounds;
+    }
+
+    /**
+     * Keeps track of the farthest that a node or line sticks out of the
+     * box it is found by. Since it is not known how much of it grows with
+     * the text, all of it is counted both in world units and in canvas
+     * units, so the margin is big enough at every zoom factor.
+     *
+     * @param bounds the area the node or line covers, in canvas coordinates.
+     * @param box the box it is found by, in world coordinates.
+     * @param c the camera it was measured with.
+     */
+    private void measureOverflow(Rectangle bounds, Rectangle2D.Float box, Camera c) {
+        int left = c.convertWorldToCanvasX(box.x);
+        int top = c.convertWorldToCanvasY(box.y);
+        int right = c.convertWorldToCanvasX(box.x + box.width);
+        int bottom = c.convertWorldToCanvasY(box.y + box.height);
+        // one more for where the world box gets rounded to the canvas
+        int overflow = 1 + Math.max(Math.max(left - bounds.x, top - bounds.y),
+                Math.max(bounds.x + bounds.width - right, bounds.y + bounds.height - bottom));
+        if (overflow > overflowCanvas) {
+            overflowCanvas = overflow;
+        }
+        if (c.convertCanvasToWorldLength(overflow) > overflowWorld) {
+            overflowWorld = c.convertCanvasToWorldLength(overflow);
+        }
+    }
+
+    /**
+     * Measures how far every node and line in the flowchart sticks out of
+     * its box, so none of them are left out when part of the view is
+     * drawn. They are measured with all of their text showing.
+     */
+    private void measureFlowchart() {
+        overflowWorld = 0;
+        overflowCanvas = 0;
+        Camera measuring = new Camera();
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics g = scratch.getGraphics();
+        for (Node n : flowchart.getNodes()) {
+            getCanvasBounds(n, measuring, g);
+        }
+        for (NodeLine nl : flowchart.getNodeLines()) {
+            getCanvasBounds(nl, measuring, g);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Gets the box around the two nodes of a line, which the line never
+     * goes outside of.
+     *
+     * @param nl the line.
+     * @return the box around its nodes, in world coordinates.
+     */
+    private Rectangle2D.Float getArea(NodeLine nl) {
+        Rectangle2D.Float area = new Rectangle2D.Float(nl.getParent().getX(), nl.getParent().getY(),
+                nl.getParent().getWidth(), nl.getParent().getHeight());
+        area.add(new Rectangle2D.Float(nl.getChild().getX(), nl.getChild().getY(),
+                nl.getChild().getWidth(), nl.getChild().getHeight()));
+        return area;
     }
 
     /**
@@ -324,6 +800,27 @@ public class FlowchartWindow extends JFrame {
         return camera;
     }
 
+    /**
+     * Get the cache of node images used when drawing the view.
+     *
+     * @return the cache of node images for this window
+     */
+    public NodeImageCache getNodeImageCache() {
+        return nodeImageCache;
+    }
+
+    /**
+     * Removes a node from the flowchart of this window, along with its
+     * image in the cache of node images.
+     *
+     * @param node the node to remove
+     * @return <code>true</code> if the node was in the flowchart
+     */
+    public boolean removeNode(Node node) {
+        nodeImageCache.invalidate(node);
+        return flowchart.removeNode(node);
+    }
+
     /**
      * Get the event manager handling events for this window
      *
@@ -700,15 +1197,8 @@ public class FlowchartWindow extends JFrame {
         if (eventManager.getSelectionManager().hasEmptySelection()) {
             makeAllStylesInvisible();
         } else {
-            boolean hasNode = false;
-            boolean hasLine = false;
-            for (int i = 0; i < eventManager.getSelectionManager().getSelected().size(); i++) {
-                if (eventManager.getSelectionManager().getSelected().get(i) instanceof Node) {
-                    hasNode = true;
-                } else if (eventManager.getSelectionManager().getSelected().get(i) instanceof NodeLine) {
-                    hasLine = true;
-                }
-            }
+            boolean hasNode = !eventManager.getSelectionManager().getSelectedNodes().isEmpty();
+            boolean hasLine = !eventManager.getSelectionManager().getSelectedNodeLines().isEmpty();
             getFontStylePanel().setVisible(true);
             if (hasNode) {
                 setNodeRelatedPanelVisible(true);
@@ -724,20 +1214,21 @@ public class FlowchartWindow extends JFrame {
      * selection.
      */
     public void refreshValuesOfStylesTabDueToUpdatedSelection() {
-        ArrayList<Selectable> selected = getEventManager().getSelectionManager().getSelected();
+        Set<Selectable> selected = getEventManager().getSelectionManager().getSelected();
         if (!selected.isEmpty()) {
-            Font font = getSameFont(selected);
-            int fontSize = getSameFontSize(selected);
-            Color fontColor = getSameFontColor(selected);
-            LineType lineType = getSameLineType(selected);
-            Color lineColor = getSameLineColor(selected);
-            int lineSize = getSameLineSize(selected);
-            Shape shape = getSameShape(selected);
-            int borderSize = getSameBorderSize(selected);
-            Color borderColor = getSameBorderColor(selected);
-            Color fillColor = getSameFillColor(selected);
-            String nodeStyleName = getSameNodeStyleName(selected);
-            String lineStyleName = getSameLineStyleName(selected);
+            SelectedStyles same = getEventManager().getSelectionManager().getSelectedStyles();
+            Font font = same.getFont();
+            int fontSize = same.getFontSize();
+            Color fontColor = same.getFontColor();
+            LineType lineType = same.getLineType();
+            Color lineColor = same.getLineColor();
+            int lineSize = same.getLineSize();
+            Shape shape = same.getShape();
+            int borderSize = same.getBorderSize();
+            Color borderColor = same.getBorderColor();
+            Color fillColor = same.getFillColor();
+            String nodeStyleName = same.getNodeStyleName();
+            String lineStyleName = same.getLineStyleName();
             setFontPanelStyles(font, fontColor, fontSize);
             setNodePanelStyles(shape, borderColor, fillColor, borderSize);
             setLinePanelStyles(lineType, lineColor, lineSize);
@@ -754,338 +1245,6 @@ public class FlowchartWindow extends JFrame {
         }
     }
 
-    /**
-     * Gets the font name that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same font.
-     *
-     * @param selected the list of selected objects.
-     * @return the font name that is common to all selectables, or
-     * <code>null</code> if the font name is not common.
-     */
-    private Font getSameFont(ArrayList<Selectable> selected) {
-        Font font = selected.get(0).getFontStyle().getFontType();
-        for (int i = 1; i < selected.size(); i++) {
-            if (!selected.get(i).getFontStyle().getFontType().getFontName().equals(font.getFontName())) {
-                return null;
-            }
-        }
-        return font;
-    }
-
-    /**
-     * Gets the font size that is the same for all selectables in the given
-     * list, or <code>-1</code> if they do not all have the same font size.
-     *
-     * @param selected the list of selected objects.
-     * @return the font size that is common to all selectables, or
-     * <code>-1</code> if the font size is not common.
-     */
-    private int getSameFontSize(ArrayList<Selectable> selected) {
-        int size = selected.get(0).getFontStyle().getFontSize();
-        for (int i = 1; i < selected.size(); i++) {
-            if (size != selected.get(i).getFontStyle().getFontSize()) {
-                //The border size is not common
-                return -1;
-            }
-        }
-        return size;
-    }
-
-    /**
-     * Gets the font color that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same font color.
-     *
-     * @param selected the list of selected objects.
-     * @return the font color that is common to all selectables, or
-     * <code>null</code> if the font color is not common.
-     */
-    private Color getSameFontColor(ArrayList<Selectable> selected) {
-        Color color = selected.get(0).getFontStyle().getFontColor();
-        for (int i = 1; i < selected.size(); i++) {
-            if (!selected.get(i).getFontStyle().getFontColor().equals(color)) {
-                return null;
-            }
-        }
-        return color;
-    }
-
-    /**
-     * Gets the line type that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same line type.
-     *
-     * @param selected the list of selected objects.
-     * @return the line type that is common to all selectables, or
-     * <code>null</code> if the line type is not common.
-     */
-    private LineType getSameLineType(ArrayList<Selectable> selected) {
-        int firstNodeLine = indexOfFirstNodeLine(selected);
-        if (firstNodeLine == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        LineType type = ((NodeLine) selected.get(firstNodeLine)).getStyle().getType();
-        for (int i = firstNodeLine + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                if (type != ((NodeLine) selected.get(i)).getStyle().getType()) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return type;
-    }
-
-    /**
-     * Gets the line color that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same line color.
-     *
-     * @param selected the list of selected objects.
-     * @return the line color that is common to all selectables, or
-     * <code>null</code> if the line color is not common.
-     */
-    private Color getSameLineColor(ArrayList<Selectable> selected) {
-        int firstNodeLine = indexOfFirstNodeLine(selected);
-        if (firstNodeLine == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        Color color = ((NodeLine) selected.get(firstNodeLine)).getStyle().getLineColor();
-        for (int i = firstNodeLine + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                if (color != ((NodeLine) selected.get(i)).getStyle().getLineColor()) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return color;
-    }
-
-    /**
-     * Gets the line size that is the same for all selectables in the given
-     * list, or <code>-1</code> if they do not all have the same line size.
-     *
-     * @param selected the list of selected objects.
-     * @return the line size that is common to all selectables, or
-     * <code>-1</code> if the line size is not common.
-     */
-    private int getSameLineSize(ArrayList<Selectable> selected) {
-        int firstNodeLine = indexOfFirstNodeLine(selected);
-        if (firstNodeLine == -1) {
-            //No nodes in this selection anyway
-            return -1;
-        }
-        int size = ((NodeLine) selected.get(firstNodeLine)).getStyle().getLineSize();
-        for (int i = firstNodeLine + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                if (size != ((NodeLine) selected.get(i)).getStyle().getLineSize()) {
-                    //The border size is not common
-                    return -1;
-                }
-            }
-        }
-        return size;
-    }
-
-    /**
-     * Gets the linked line style name that is the same for all selectables in
-     * the given list, or <code>null</code> if they do not all have the same
-     * linked line style name.
-     *
-     * @param selected the list of selected objects.
-     * @return the linked line style name that is common to all selectables, or
-     * <code>null</code> if the linked line style name is not common.
-     */
-    private String getSameLineStyleName(ArrayList<Selectable> selected) {
-        int firstNodeLine = indexOfFirstNodeLine(selected);
-        if (firstNodeLine == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        String name = ((NodeLine) selected.get(firstNodeLine)).getLinkedStyle();
-        //return null if there is no name
-        if (name == null) {
-            return null;
-        }
-        for (int i = firstNodeLine + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                if (!name.equals(((NodeLine) selected.get(i)).getLinkedStyle())) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return name;
-    }
-
-    /**
-     * Gets the shape that is the same for all selectables in the given list, or
-     * <code>null</code> if they do not all have the same shape.
-     *
-     * @param selected the list of selected objects.
-     * @return the shape that is common to all selectables, or <code>null</code>
-     * if the shape is not common.
-     */
-    private Shape getSameShape(ArrayList<Selectable> selected) {
-        int firstNode = indexOfFirstNode(selected);
-        if (firstNode == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        Shape shape = ((Node) selected.get(firstNode)).getStyle().getShape();
-        for (int i = firstNode + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                if (shape != ((Node) selected.get(i)).getStyle().getShape()) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return shape;
-    }
-
-    /**
-     * Gets the fill color that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same fill color.
-     *
-     * @param selected the list of selected objects.
-     * @return the fill color that is common to all selectables, or
-     * <code>null</code> if the fill color is not common.
-     */
-    private Color getSameFillColor(ArrayList<Selectable> selected) {
-        int firstNode = indexOfFirstNode(selected);
-        if (firstNode == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        Color color = ((Node) selected.get(firstNode)).getStyle().getFillColor();
-        for (int i = firstNode + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                if (color != ((Node) selected.get(i)).getStyle().getFillColor()) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return color;
-    }
-
-    /**
-     * Gets the border color that is the same for all selectables in the given
-     * list, or <code>null</code> if they do not all have the same border color.
-     *
-     * @param selected the list of selected objects.
-     * @return the border color that is common to all selectables, or
-     * <code>null</code> if the border color is not common.
-     */
-    private Color getSameBorderColor(ArrayList<Selectable> selected) {
-        int firstNode = indexOfFirstNode(selected);
-        if (firstNode == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        Color color = ((Node) selected.get(firstNode)).getStyle().getBorderColor();
-        for (int i = firstNode + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                if (color != ((Node) selected.get(i)).getStyle().getBorderColor()) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return color;
-    }
-
-    /**
-     * Gets the border size that is the same for all selectables in the given
-     * list, or <code>-1</code> if they do not all have the same border size.
-     *
-     * @param selected the list of selected objects.
-     * @return the border size that is common to all selectables, or
-     * <code>-1</code> if the border size is not common.
-     */
-    private int getSameBorderSize(ArrayList<Selectable> selected) {
-        int firstNode = indexOfFirstNode(selected);
-        if (firstNode == -1) {
-            //No nodes in this selection anyway
-            return -1;
-        }
-        int size = ((Node) selected.get(firstNode)).getStyle().getBorderSize();
-        for (int i = firstNode + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                if (size != ((Node) selected.get(i)).getStyle().getBorderSize()) {
-                    //The border size is not common
-                    return -1;
-                }
-            }
-        }
-        return size;
-    }
-
-    /**
-     * Gets the linked node style name that is the same for all selectables in
-     * the given list, or <code>null</code> if they do not all have the same
-     * linked node style name.
-     *
-     * @param selected the list of selected objects.
-     * @return the linked node style name that is common to all selectables, or
-     * <code>null</code> if the linked node style name is not common.
-     */
-    private String getSameNodeStyleName(ArrayList<Selectable> selected) {
-        int firstNode = indexOfFirstNode(selected);
-        if (firstNode == -1) {
-            //No nodes in this selection anyway
-            return null;
-        }
-        String name = ((Node) selected.get(firstNode)).getLinkedStyle();
-        // return null if there is no linked style name
-        if (name == null) {
-            return null;
-        }
-        
-        for (int i = firstNode + 1; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                if (!name.equals(((Node)selected.get(i)).getLinkedStyle())) {
-                    //The border size is not common
-                    return null;
-                }
-            }
-        }
-        return name;
-    }
-
-    /**
-     * Gets the index of the first selectable that is a node. If there is no
-     * node, then this returns <code>-1</code>.
-     *
-     * @param selected the list of selectables.
-     * @return the index of the first selectable that is a node.
-     */
-    private int indexOfFirstNode(ArrayList<Selectable> selected) {
-        for (int i = 0; i < selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    /**
-     * Gets the index of the first selectable that is a node line. If there is
-     * no node line, then this returns <code>-1</code>.
-     *
-     * @param selected the list of selectables.
-     * @return the index of the first selectable that is a node line.
-     */
-    private int indexOfFirstNodeLine(ArrayList<Selectable> selected) {
-        for (int i = 0; i < selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
     /**
      * Inits the list of possible Shapes for a node.
      *
@@ -1469,6 +1628,8 @@ public class FlowchartWindow extends JFrame {
             file = fc.getSelectedFile();
             try {
                 flowchart = Flowchart.readFlowchartData(Files.newInputStream(file.toPath()), this);
+                nodeImageCache.clear();
+                measureFlowchart();
                 refreshWindowTitle();
                 //System.out.println("Read flowchart data from " + file);
             } catch (IOException ex) {
@@ -1501,20 +1662,11 @@ public class FlowchartWindow extends JFrame {
      * @return the root node, or <code>null</code> if there is no root node.
      */
     private Node getRootNode() {
-        for (Node n : flowchart.getNodes()) {
-            if (!n.getLinesConnected().isEmpty()) {
-                boolean allParent = true;
-                for (NodeLine nl : n.getLinesConnected()) {
-                    if (!nl.getParent().equals(n)) {
-                        allParent = false;
-                    }
-                }
-                if (allParent) {
-                    return n;
-                }
-            }
+        GraphSnapshot graph = flowchart.snapshotGraph();
+        if (graph.getRootCount() == 0) {
+            return null;
         }
-        return null;
+        return graph.getNode(graph.getRoot(0));
     }
 
     /**
@@ -1536,67 +1688,66 @@ public class FlowchartWindow extends JFrame {
         sorted.add(rootNode);
             rootNode.setX(0);
             rootNode.setY(0);
-            positionNodesVertically(rootNode, 
-                    rootNode.getChildNodes(), 
-                    sorted, paddingX, paddingY); 
+            positionNodesVertically(rootNode, sorted, paddingX, paddingY); 
         }
         redrawView();
     }
     
     /**
-     * A recursive method that auto-formats the flowchart vertically
+     * A recursive method that auto-formats the children of a node vertically
      * @param parent The parent node to start positioning everything from
-     * @param nodes The children nodes
      * @param sorted An array to keep track of the nodes that were already sorted
      * @param paddingX padding for the x axis
      * @param paddingY padding for the y axis
      */
-    public void positionNodesVertically(Node parent, ArrayList<Node> nodes, ArrayList<Node> sorted, float paddingX, float paddingY) {
+    public void positionNodesVertically(Node parent, ArrayList<Node> sorted, float paddingX, float paddingY) {
+        List<NodeLine> lines = parent.getOutgoingLines();
         float currentX = parent.getX();
-        for (int i=0; i<nodes.size(); i++) {
+        for (int i=0; i<lines.size(); i++) {
+            Node node = lines.get(i).getChild();
             // position the node
-            nodes.get(i).setX(currentX);
-            currentX += nodes.get(i).getWidth() + paddingX;
+            node.setX(currentX);
+            currentX += node.getWidth() + paddingX;
             
-            nodes.get(i).setY(parent.getY() + parent.getHeight() + paddingY);
+            node.setY(parent.getY() + parent.getHeight() + paddingY);
             
-            sorted.add(nodes.get(i));
+            sorted.add(node);
             
-            ArrayList<Node> children =  nodes.get(i).getChildNodes();
+            List<NodeLine> children = node.getOutgoingLines();
             if (!children.isEmpty()) {
-                positionNodesVertically( nodes.get(i), children, sorted,paddingX, paddingY);
+                positionNodesVertically(node, sorted, paddingX, paddingY);
                 // find the smallest and the largest Y of the newly sorted list
-                Node smallestX = children.get(0);
+                Node smallestX = children.get(0).getChild();
+                Node largestX = smallestX;
                 for (int j=1; j<children.size(); j++) {
-                    if (children.get(j).getX() < smallestX.getX()) {
-                        smallestX = children.get(j);
+                    Node child = children.get(j).getChild();
+                    if (child.getX() < smallestX.getX()) {
+                        smallestX = child;
                     }
-                }
-                Node largestX = children.get(0);
-                for (int j=1; j<children.size(); j++) {
-                    if (children.get(j).getX() + children.get(j).getWidth() >
+                    if (child.getX() + child.getWidth() >
                             largestX.getX() + largestX.getWidth()) {
-                        largestX = children.get(j);
+                        largestX = child;
                     }
                 }
                 
                 // shift all previously positioned nodes by the height of the newly sorted children
                 float shiftAmount = -(largestX.getX() + largestX.getWidth() - smallestX.getX());
                 // shift all the sorted nodes up
-                for (Node n : sorted) {
+                for (int j=0; j<sorted.size(); j++) {
+                    Node n = sorted.get(j);
                     n.setX(n.getX() + (shiftAmount/2));
                 }
 
                  // shift the base point for the unsorted nodes down
-                currentX = nodes.get(i).getX() + nodes.get(i).getWidth() - (shiftAmount/2) + paddingX;
+                currentX = node.getX() + node.getWidth() - (shiftAmount/2) + paddingX;
             }
         }
         // center the parent to the children when you're done
         float averageXPos = 0;
-        for (Node n : nodes) {
-            averageXPos += n.getX();
+        for (int i=0; i<lines.size(); i++) {
+            averageXPos += lines.get(i).getChild().getX();
         }
-        averageXPos = averageXPos / nodes.size();
+        averageXPos = averageXPos / lines.size();
         parent.setX(averageXPos);
     }
     
@@ -1619,98 +1770,93 @@ public class FlowchartWindow extends JFrame {
             sorted.add(rootNode);
             rootNode.setX(0);
             rootNode.setY(0);
-            positionNodesHorizontally(rootNode, 
-                    rootNode.getChildNodes(), 
-                    sorted, paddingY, paddingX);
+            positionNodesHorizontally(rootNode, sorted, paddingY, paddingX);
         }
         redrawView();
     }
     
     /**
-     * A recursive method that auto-formats the flowchart horizontally
+     * A recursive method that auto-formats the children of a node horizontally
      * @param parent The parent node to start positioning everything from
-     * @param nodes The children nodes
      * @param sorted An array to keep track of the nodes that were already sorted
      * @param paddingX padding for the x axis
      * @param paddingY padding for the y axis
      */
-    public void positionNodesHorizontally(Node parent, ArrayList<Node> nodes, ArrayList<Node> sorted, float paddingY, float paddingX) {
+    public void positionNodesHorizontally(Node parent, ArrayList<Node> sorted, float paddingY, float paddingX) {
+        List<NodeLine> lines = parent.getOutgoingLines();
         float currentY = parent.getY();
-        for (int i=0; i<nodes.size(); i++) {
+        for (int i=0; i<lines.size(); i++) {
+            Node node = lines.get(i).getChild();
             // position the node
-            nodes.get(i).setY(currentY);
-            currentY += nodes.get(i).getHeight() + paddingY;
+            node.setY(currentY);
+            currentY += node.getHeight() + paddingY;
             
-            nodes.get(i).setX(parent.getX() + parent.getWidth() + paddingX);
+            node.setX(parent.getX() + parent.getWidth() + paddingX);
             
-            sorted.add(nodes.get(i));
+            sorted.add(node);
             
-            ArrayList<Node> children =  nodes.get(i).getChildNodes();
+            List<NodeLine> children = node.getOutgoingLines();
             if (!children.isEmpty()) {
-                positionNodesHorizontally( nodes.get(i), children, sorted,paddingY, paddingX);
+                positionNodesHorizontally(node, sorted, paddingY, paddingX);
                 // find the smallest and the largest Y of the newly sorted list
-                Node smallestY = children.get(0);
+                Node smallestY = children.get(0).getChild();
+                Node largestY = smallestY;
                 for (int j=1; j<children.size(); j++) {
-                    if (children.get(j).getY() < smallestY.getY()) {
-                        smallestY = children.get(j);
+                    Node child = children.get(j).getChild();
+                    if (child.getY() < smallestY.getY()) {
+                        smallestY = child;
                     }
-                }
-                Node largestY = children.get(0);
-                for (int j=1; j<children.size(); j++) {
-                    if (children.get(j).getY() + children.get(j).getHeight() >
+                    if (child.getY() + child.getHeight() >
                             largestY.getY() + largestY.getHeight()) {
-                        largestY = children.get(j);
+                        largestY = child;
                     }
                 }
                 
                 // shift all previously positioned nodes by the height of the newly sorted children
                 float shiftAmount = -(largestY.getY() + largestY.getHeight() - smallestY.getY());
                 // shift all the sorted nodes up
-                for (Node n : sorted) {
+                for (int j=0; j<sorted.size(); j++) {
+                    Node n = sorted.get(j);
                     n.setY(n.getY() + (shiftAmount/2));
                 }
 
                  // shift the base point for the unsorted nodes down
-                currentY = nodes.get(i).getY() + nodes.get(i).getHeight() - (shiftAmount/2) + paddingY;
+                currentY = node.getY() + node.getHeight() - (shiftAmount/2) + paddingY;
             }
         }
         // center the parent to the children when you're done
         float averageYPos = 0;
-        for (Node n : nodes) {
-            averageYPos += n.getY();
+        for (int i=0; i<lines.size(); i++) {
+            averageYPos += lines.get(i).getChild().getY();
         }
-        averageYPos = averageYPos / nodes.size();
+        averageYPos = averageYPos / lines.size();
         parent.setY(averageYPos);
     }
     
     
     /**
-     * Shift all of the given nodes and their children recursively on the Y axis.
-     * @param nodes The nodes and their children to shift.
+     * Shift a node and its children recursively on the Y axis.
+     * @param node The node to shift along with its children.
      * @param amount The amount to shift it by.
      */
-    public void shiftNodesVertically(ArrayList<Node> nodes, float amount) {
-        if (nodes.isEmpty()) {
-            return;
-        }
-        for (Node n : nodes) {
-            n.setY(n.getY() + amount);
-            shiftNodesVertically(n.getChildNodes(), amount);
+    public void shiftNodesVertically(Node node, float amount) {
+        node.setY(node.getY() + amount);
+        List<NodeLine> lines = node.getOutgoingLines();
+        for (int i=0; i<lines.size(); i++) {
+            shiftNodesVertically(lines.get(i).getChild(), amount);
         }
     }
     
      /**
-     * Shift all of the given nodes and their children recursively on the X axis.
-     * @param nodes The nodes and their children to shift.
+     * Shift a node and its children recursively on the X axis.
+     * @param node The node to shift along with its children.
      * @param amount The amount to shift it by.
      */
-    public void shiftNodesHorizontally(ArrayList<Node> nodes, float amount) {
-        if (nodes.isEmpty()) {
-            return;
-        }
-        for (Node n : nodes) {
-            n.setX(n.getX() + amount);
-            shiftNodesHorizontally(n.getChildNodes(), amount);
+    public void shiftNodesHorizontally(Node node, float amount) {
+        node.setX(node.getX() + amount);
+        List<NodeLine> lines = node.getOutgoingLines();
+        for (int i=0; i<lines.size(); i++) {
+            shiftNodesHorizontally(lines.get(i).getChild(), amount);
         }
     }    
     /**
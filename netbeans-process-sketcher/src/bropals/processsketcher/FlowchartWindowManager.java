@@ -20,6 +20,7 @@
 package bropals.processsketcher;
 
 import bropals.processsketcher.icons.IconManager;
+import bropals.processsketcher.util.BooleanBlinker;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
@@ -61,12 +62,17 @@ public class FlowchartWindowManager implements WindowListener {
      * The actual number will be one less than this value.
      */
     private int chartCounter = 1;
+    /**
+     * Blinks the text cursor in every window. 
+     */
+    private final BooleanBlinker cursorBlinker;
     
     /**
      * Creates a new window manager and opens a welcome window.
      */
     public FlowchartWindowManager() {
         windows = new ArrayList<>();
+        cursorBlinker = new BooleanBlinker(280);
         fc = new JFileChooser();
         welcomeWindow = new JFrame("Welcome to Process Sketcher");
         welcomeWindow.setIconImage(ProcessSketcher.mainIconSmaller);
@@ -168,10 +174,19 @@ public class FlowchartWindowManager implements WindowListener {
         }
         if (close) {
             windows.remove(window);
+            cursorBlinker.removeListener(window.getEventManager());
             window.dispose();
         }
     }
     
+    /**
+     * Gets the blinker that blinks the text cursor in every window.
+     * @return the text cursor blinker.
+     */
+    public BooleanBlinker getCursorBlinker() {
+        return cursorBlinker;
+    }
+    
     /**
      * The action listener for the welcome window's button.
      */
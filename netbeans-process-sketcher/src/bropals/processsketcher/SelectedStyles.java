@@ -0,0 +1,365 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher;
+
+import bropals.processsketcher.data.Node;
+import bropals.processsketcher.data.NodeLine;
+import bropals.processsketcher.data.Selectable;
+import bropals.processsketcher.style.FontStyle;
+import bropals.processsketcher.style.LineStyle;
+import bropals.processsketcher.style.LineType;
+import bropals.processsketcher.style.NodeStyle;
+import bropals.processsketcher.style.Shape;
+import java.awt.Color;
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Keeps count of the style values of everything in a selection, so the
+ * values that are the same for everything can be found without looking
+ * through the selection. The counts are changed as things are selected,
+ * deselected and restyled. A value that is not the same for everything is
+ * <code>null</code>, or <code>-1</code> for sizes. The node values only
+ * count nodes and the line values only count node lines.
+ * @author Jonathon
+ */
+public class SelectedStyles {
+
+    private final Histogram font;
+    private final Histogram fontSize;
+    private final Histogram fontColor;
+    private final Histogram shape;
+    private final Histogram fillColor;
+    private final Histogram borderColor;
+    private final Histogram borderSize;
+    private final Histogram nodeStyleName;
+    private final Histogram lineType;
+    private final Histogram lineColor;
+    private final Histogram lineSize;
+    private final Histogram lineStyleName;
+    /**
+     * The values that each selectable was counted with, so they can be
+     * taken out of the counts again after the selectable's style changes.
+     */
+    private final IdentityHashMap<Selectable, Object[]> counted;
+
+    /**
+     * Creates the counts for an empty selection.
+     */
+    public SelectedStyles() {
+        font = new Histogram();
+        fontSize = new Histogram();
+        fontColor = new Histogram();
+        shape = new Histogram();
+        fillColor = new Histogram();
+        borderColor = new Histogram();
+        borderSize = new Histogram();
+        nodeStyleName = new Histogram();
+        lineType = new Histogram();
+        lineColor = new Histogram();
+        lineSize = new Histogram();
+        lineStyleName = new Histogram();
+        counted = new IdentityHashMap<>();
+    }
+
+    /**
+     * Counts the style values of a selectable that was selected. Nothing
+     * happens if it is already counted.
+     * @param s the selectable.
+     */
+    public void add(Selectable s) {
+        if (counted.containsKey(s)) {
+            return;
+        }
+        FontStyle fs = s.getFontStyle();
+        Object[] values;
+        if (s instanceof Node) {
+            Node n = (Node) s;
+            NodeStyle style = n.getStyle();
+            values = new Object[] { fs.getFontType().getFontName(), fs.getFontSize(), fs.getFontColor(),
+                style.getShape(), style.getFillColor(), style.getBorderColor(),
+                style.getBorderSize(), n.getLinkedStyle() };
+            shape.add(values[3], values[3]);
+            fillColor.add(values[4], values[4]);
+            borderColor.add(values[5], values[5]);
+            borderSize.add(values[6], values[6]);
+            nodeStyleName.add(values[7], values[7]);
+        } else if (s instanceof NodeLine) {
+            NodeLine nl = (NodeLine) s;
+            LineStyle style = nl.getStyle();
+            values = new Object[] { fs.getFontType().getFontName(), fs.getFontSize(), fs.getFontColor(),
+                style.getType(), style.getLineColor(), style.getLineSize(), nl.getLinkedStyle() };
+            lineType.add(values[3], values[3]);
+            lineColor.add(values[4], values[4]);
+            lineSize.add(values[5], values[5]);
+            lineStyleName.add(values[6], values[6]);
+        } else {
+            values = new Object[] { fs.getFontType().getFontName(), fs.getFontSize(), fs.getFontColor() };
+        }
+        // fonts are the same if they have the same name
+        font.add(values[0], fs.getFontType());
+        fontSize.add(values[1], values[1]);
+        fontColor.add(values[2], values[2]);
+        counted.put(s, values);
+    }
+
+    /**
+     * Takes the style values of a selectable that was deselected out of the
+     * counts. Nothing happens if it is not counted.
+     * @param s the selectable.
+     */
+    public void remove(Selectable s) {
+        Object[] values = counted.remove(s);
+        if (values == null) {
+            return;
+        }
+        font.remove(values[0]);
+        fontSize.remove(values[1]);
+        fontColor.remove(values[2]);
+        if (s instanceof Node) {
+            shape.remove(values[3]);
+            fillColor.remove(values[4]);
+            borderColor.remove(values[5]);
+            borderSize.remove(values[6]);
+            nodeStyleName.remove(values[7]);
+        } else if (s instanceof NodeLine) {
+            lineType.remove(values[3]);
+            lineColor.remove(values[4]);
+            lineSize.remove(values[5]);
+            lineStyleName.remove(values[6]);
+        }
+    }
+
+    /**
+     * Counts the style values of a selectable again after its style changed.
+     * Nothing happens if it is not counted.
+     * @param s the selectable.
+     */
+    public void restyle(Selectable s) {
+        if (counted.containsKey(s)) {
+            remove(s);
+            add(s);
+        }
+    }
+
+    /**
+     * Takes everything out of the counts.
+     */
+    public void clear() {
+        font.clear();
+        fontSize.clear();
+        fontColor.clear();
+        shape.clear();
+        fillColor.clear();
+        borderColor.clear();
+        borderSize.clear();
+        nodeStyleName.clear();
+        lineType.clear();
+        lineColor.clear();
+        lineSize.clear();
+        lineStyleName.clear();
+        counted.clear();
+    }
+
+    /**
+     * Gets the font that everything selected uses.
+     * @return the font, or <code>null</code> if it is not the same for
+     * everything selected or nothing is selected.
+     */
+    public Font getFont() {
+        return (Font) font.getSame();
+    }
+
+    /**
+     * Gets the font size that everything selected uses.
+     * @return the font size, or <code>-1</code> if it is not the same for
+     * everything selected or nothing is selected.
+     */
+    public int getFontSize() {
+        return getSameSize(fontSize);
+    }
+
+    /**
+     * Gets the font color that everything selected uses.
+     * @return the font color, or <code>null</code> if it is not the same for
+     * everything selected or nothing is selected.
+     */
+    public Color getFontColor() {
+        return (Color) fontColor.getSame();
+    }
+
+    /**
+     * Gets the shape that every selected node uses.
+     * @return the shape, or <code>null</code> if it is not the same for
+     * every node or no node is selected.
+     */
+    public Shape getShape() {
+        return (Shape) shape.getSame();
+    }
+
+    /**
+     * Gets the fill color that every selected node uses.
+     * @return the fill color, or <code>null</code> if it is not the same for
+     * every node or no node is selected.
+     */
+    public Color getFillColor() {
+        return (Color) fillColor.getSame();
+    }
+
+    /**
+     * Gets the border color that every selected node uses.
+     * @return the border color, or <code>null</code> if it is not the same for
+     * every node or no node is selected.
+     */
+    public Color getBorderColor() {
+        return (Color) borderColor.getSame();
+    }
+
+    /**
+     * Gets the border size that every selected node uses.
+     * @return the border size, or <code>-1</code> if it is not the same for
+     * every node or no node is selected.
+     */
+    public int getBorderSize() {
+        return getSameSize(borderSize);
+    }
+
+    /**
+     * Gets the name of the style that every selected node is linked with.
+     * @return the style name, or <code>null</code> if it is not the same for
+     * every node or no node is selected.
+     */
+    public String getNodeStyleName() {
+        return (String) nodeStyleName.getSame();
+    }
+
+    /**
+     * Gets the line type that every selected line uses.
+     * @return the line type, or <code>null</code> if it is not the same for
+     * every line or no line is selected.
+     */
+    public LineType getLineType() {
+        return (LineType) lineType.getSame();
+    }
+
+    /**
+     * Gets the line color that every selected line uses.
+     * @return the line color, or <code>null</code> if it is not the same for
+     * every line or no line is selected.
+     */
+    public Color getLineColor() {
+        return (Color) lineColor.getSame();
+    }
+
+    /**
+     * Gets the line size that every selected line uses.
+     * @return the line size, or <code>-1</code> if it is not the same for
+     * every line or no line is selected.
+     */
+    public int getLineSize() {
+        return getSameSize(lineSize);
+    }
+
+    /**
+     * Gets the name of the style that every selected line is linked with.
+     * @return the style name, or <code>null</code> if it is not the same for
+     * every line or no line is selected.
+     */
+    public String getLineStyleName() {
+        return (String) lineStyleName.getSame();
+    }
+
+    /**
+     * Gets the size that is the same for everything counted.
+     * @param sizes the counts of the sizes.
+     * @return the size, or <code>-1</code> if it is not the same for
+     * everything or nothing is counted.
+     */
+    private static int getSameSize(Histogram sizes) {
+        Object size = sizes.getSame();
+        return size == null ? -1 : (Integer) size;
+    }
+
+    /**
+     * How many times each value of one style attribute is used.
+     */
+    private static class Histogram {
+
+        private final HashMap<Object, Bucket> buckets = new HashMap<>();
+
+        /**
+         * Counts one use of a value.
+         * @param key what the value is compared by.
+         * @param value the value to give back if it is the only one used.
+         */
+        private void add(Object key, Object value) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(value);
+                buckets.put(key, bucket);
+            }
+            bucket.count++;
+        }
+
+        /**
+         * Takes away one use of a value.
+         * @param key what the value is compared by.
+         */
+        private void remove(Object key) {
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && --bucket.count == 0) {
+                buckets.remove(key);
+            }
+        }
+
+        /**
+         * Takes away every use of every value.
+         */
+        private void clear() {
+            buckets.clear();
+        }
+
+        /**
+         * Gets the value that everything counted uses.
+         * @return the value, or <code>null</code> if more than one value is
+         * used or nothing is counted.
+         */
+        private Object getSame() {
+            if (buckets.size() != 1) {
+                return null;
+            }
+            return buckets.values().iterator().next().value;
+        }
+    }
+
+    /**
+     * The number of uses of one value.
+     */
+    private static class Bucket {
+
+        private final Object value;
+        private int count;
+
+        private Bucket(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -23,10 +23,15 @@ import bropals.processsketcher.data.Flowchart;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
 import bropals.processsketcher.data.Selectable;
+import bropals.processsketcher.util.LinkedIdentitySet;
 import java.awt.Font;
 import java.awt.Point;
 import java.awt.print.PrinterException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,62 +43,107 @@ import java.util.logging.Logger;
 public class SelectionManager {
     
     /**
-     * A list of everything being selected
+     * Everything being selected, in the order it was selected.
      */
-    private ArrayList<Selectable> selected;
+    private final LinkedIdentitySet<Selectable> selected;
+    /**
+     * The nodes being selected, in the order they were selected.
+     */
+    private final LinkedIdentitySet<Node> selectedNodes;
+    /**
+     * The node lines being selected, in the order they were selected.
+     */
+    private final LinkedIdentitySet<NodeLine> selectedNodeLines;
+    /**
+     * Views of the selection that can not be changed, which are given out
+     * by the getters.
+     */
+    private final Set<Selectable> selectedView;
+    private final Set<Node> selectedNodesView;
+    private final Set<NodeLine> selectedNodeLinesView;
+    /**
+     * The counts of the style values of everything being selected.
+     */
+    private final SelectedStyles selectedStyles;
     /**
      * The FlowChart window that is using this SelectionManager
      */
     private FlowchartWindow instance;
+    /**
+     * How many updates have been started and not ended yet. The styles tab
+     * is only refreshed when there are none.
+     */
+    private int updateDepth;
+    /**
+     * Whether or not the selection changed during the current update.
+     */
+    private boolean changedDuringUpdate;
+    /**
+     * Whether or not something was selected during the current update, so
+     * the values in the styles tab need to be refreshed.
+     */
+    private boolean selectedDuringUpdate;
     
     /**
      * Create a new selection manager for a window.
      * @param window The window that will be using this SelectionManager
      */
     public SelectionManager(FlowchartWindow window) {
-        selected = new ArrayList<>();
+        selected = new LinkedIdentitySet<>();
+        selectedNodes = new LinkedIdentitySet<>();
+        selectedNodeLines = new LinkedIdentitySet<>();
+        selectedView = Collections.unmodifiableSet(selected);
+        selectedNodesView = Collections.unmodifiableSet(selectedNodes);
+        selectedNodeLinesView = Collections.unmodifiableSet(selectedNodeLines);
+        selectedStyles = new SelectedStyles();
         this.instance = window;
     }
     
     /**
-     * Get a list of everything that is selected. Adding selectables to this 
-     * list will add them to the selected, but it is advised to use the select()
-     * and deselect() methods
-     * @return 
+     * Get everything that is selected, in the order it was selected. The
+     * returned set can not be changed; use the select() and deselect()
+     * methods to change the selection.
+     * @return everything that is selected.
      */
-    public ArrayList<Selectable> getSelected() {
-        return selected;
+    public Set<Selectable> getSelected() {
+        return selectedView;
+    }
+
+    /**
+     * See if something is selected. This takes the same time no matter how
+     * much is selected.
+     * @param selectable the node or node line.
+     * @return <code>true</code> if it is selected.
+     */
+    public boolean isSelected(Selectable selectable) {
+        return selected.contains(selectable);
     }
     
     /**
-     * Select a single selectable
+     * Select a single selectable. If it is already selected, it becomes the
+     * most recently selected selectable.
      * @param selectable The selectable being selected
      */
     public void select(Selectable selectable) {
-        selected.add(selectable);
-        instance.refreshStylesTabVisiblity();
-        instance.refreshValuesOfStylesTabDueToUpdatedSelection();
-        instance.revalidateStyles();
+        remove(selectable);
+        add(selectable);
+        selectionChanged(true);
     }
     
     /**
      * Select many selectables
      * @param selectables A list of all the selectables being selected
      */
-    public void select(ArrayList<Selectable> selectables) {
+    public void select(Collection<? extends Selectable> selectables) {
         // don't do anything if nothing is being changed
         if (selectables == null || selectables.isEmpty()) {
             return;
         }
         
         for (Selectable sel : selectables) {
-            if (!selected.contains(sel)) {
-                selected.add(sel);
-            }
+            add(sel);
         }
-        instance.refreshStylesTabVisiblity();
-        instance.refreshValuesOfStylesTabDueToUpdatedSelection();
-        instance.revalidateStyles();
+        selectionChanged(true);
     }
     
     /**
@@ -101,24 +151,24 @@ public class SelectionManager {
      * @param selectable The selectable being deselected
      */
     public void deselect(Selectable selectable) {
-        selected.remove(selectable);
-        instance.refreshStylesTabVisiblity();
-        instance.revalidateStyles();
+        remove(selectable);
+        selectionChanged(false);
     }
     
     /**
      * Deselect many selectables
      * @param selectables A list of all the selectables being deselected
      */
-    public void deselect(ArrayList<Selectable> selectables) {
+    public void deselect(Collection<? extends Selectable> selectables) {
         // don't do anything if nothing is being changed
         if (selectables == null || selectables.isEmpty()) {
             return;
         }
         
-        selected.removeAll(selectables);
-        instance.refreshStylesTabVisiblity();
-        instance.revalidateStyles();
+        for (Selectable sel : selectables) {
+            remove(sel);
+        }
+        selectionChanged(false);
     }
     
     /**
@@ -126,38 +176,144 @@ public class SelectionManager {
      */
     public void clearSelection() {
         selected.clear();
-        instance.makeAllStylesInvisible();
+        selectedNodes.clear();
+        selectedNodeLines.clear();
+        selectedStyles.clear();
+        selectionChanged(false);
+    }
+
+    /**
+     * Gets the style values that are the same for everything selected.
+     * @return the counts of the style values of the selection.
+     */
+    public SelectedStyles getSelectedStyles() {
+        return selectedStyles;
+    }
+
+    /**
+     * Lets the selection know that the styles of some nodes or lines were
+     * changed, so it can keep count of the style values of the selection.
+     * Anything that is not selected is ignored by the count, but restyled
+     * nodes are passed on to the flowchart since their borders are part of
+     * its size.
+     * @param restyled the nodes and lines whose styles were changed.
+     */
+    public void restyled(Collection<? extends Selectable> restyled) {
+        for (Selectable s : restyled) {
+            selectedStyles.restyle(s);
+            if (s instanceof Node) {
+                instance.getFlowchart().nodeRestyled((Node)s);
+            }
+        }
+    }
+
+    /**
+     * Starts changing the selection in many steps. The styles tab is not
+     * refreshed until every update that was started has been ended, so
+     * selecting many things one at a time only refreshes it once.
+     * Updates can be nested.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Ends changing the selection in many steps, refreshing the styles tab
+     * if this ends the last update and the selection changed.
+     */
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            return;
+        }
+        updateDepth--;
+        if (updateDepth == 0 && changedDuringUpdate) {
+            boolean refreshValues = selectedDuringUpdate;
+            changedDuringUpdate = false;
+            selectedDuringUpdate = false;
+            refreshStylesTab(refreshValues);
+        }
+    }
+
+    /**
+     * Lets the styles tab know that the selection changed, or remembers to
+     * do it later if the selection is being updated.
+     * @param selectedSomething whether or not something was selected, so
+     * the values in the styles tab need to be refreshed.
+     */
+    private void selectionChanged(boolean selectedSomething) {
+        if (updateDepth > 0) {
+            changedDuringUpdate = true;
+            selectedDuringUpdate |= selectedSomething;
+        } else {
+            refreshStylesTab(selectedSomething);
+        }
+    }
+
+    /**
+     * Refreshes which parts of the styles tab are showing and, if asked to,
+     * the values shown in it.
+     * @param refreshValues whether or not to refresh the values too.
+     */
+    private void refreshStylesTab(boolean refreshValues) {
+        if (selected.isEmpty()) {
+            instance.makeAllStylesInvisible();
+        } else {
+            instance.refreshStylesTabVisiblity();
+            if (refreshValues) {
+                instance.refreshValuesOfStylesTabDueToUpdatedSelection();
+            }
+        }
         instance.revalidateStyles();
     }
-  
+
     /**
-     * Get all the nodes being selected. Adding a Node to this flowchart WON'T 
-     * add it to the flowchart. This array might be empty if no Nodes are selected.
-     * @return A list of all the NodeLines in the selection.
+     * Adds a selectable to the selection and to the set for its type.
+     * @param selectable the selectable to add.
      */
-    public ArrayList<Node> getSelectedNodes() {
-        ArrayList<Node> nodes = new ArrayList<>();
-        for (int i=0; i<selected.size(); i++) {
-            if (selected.get(i) instanceof Node) {
-                nodes.add((Node)selected.get(i));
+    private void add(Selectable selectable) {
+        if (selected.add(selectable)) {
+            selectedStyles.add(selectable);
+            if (selectable instanceof Node) {
+                selectedNodes.add((Node) selectable);
+            } else if (selectable instanceof NodeLine) {
+                selectedNodeLines.add((NodeLine) selectable);
             }
         }
-        return nodes;
     }
-    
+
     /**
-     * Get a list of all the NodeLines currently selected. Adding a NodeLine
-     * to this array WON'T add it to the flowchart. This array might be empty.
-     * @return A list of all the NodeLines in the selection.
+     * Removes a selectable from the selection and from the set for its type.
+     * @param selectable the selectable to remove.
      */
-    public ArrayList<NodeLine> getSelectedNodeLines() {
-        ArrayList<NodeLine> nodelines = new ArrayList<>();
-        for (int i=0; i<selected.size(); i++) {
-            if (selected.get(i) instanceof NodeLine) {
-                nodelines.add((NodeLine)selected.get(i));
+    private void remove(Selectable selectable) {
+        if (selected.remove(selectable)) {
+            selectedStyles.remove(selectable);
+            if (selectable instanceof Node) {
+                selectedNodes.remove(selectable);
+            } else if (selectable instanceof NodeLine) {
+                selectedNodeLines.remove(selectable);
             }
         }
-        return nodelines;
+    }
+  
+    /**
+     * Get all the nodes being selected, in the order they were selected.
+     * The returned set can not be changed. It might be empty if no Nodes
+     * are selected.
+     * @return All of the Nodes in the selection.
+     */
+    public Set<Node> getSelectedNodes() {
+        return selectedNodesView;
+    }
+    
+    /**
+     * Get all the NodeLines being selected, in the order they were selected.
+     * The returned set can not be changed. It might be empty if no
+     * NodeLines are selected.
+     * @return All of the NodeLines in the selection.
+     */
+    public Set<NodeLine> getSelectedNodeLines() {
+        return selectedNodeLinesView;
     }
     
     /**
@@ -167,11 +323,7 @@ public class SelectionManager {
      *      if nothing is selected
      */
     public Selectable getLastSelected() {
-        if (!selected.isEmpty()) {
-            return selected.get(selected.size() - 1);
-        } else {
-            return null;
-        }
+        return selected.getLast();
     }
     
     /**
@@ -185,59 +337,29 @@ public class SelectionManager {
     public Selectable getSelectableUnderPoint(Point.Float p) {
         Selectable thing = null; // initially nothing
         
-        for (int i=instance.getFlowchart().getNodes().size()-1; i>=0; i--) {
-            Node n = instance.getFlowchart().getNodes().get(i);
+        // only look at the nodes around the point, starting with the one
+        // drawn on top
+        ArrayList<Node> nearby = instance.getFlowchart().getNodesInArea(p.x, p.y, 0, 0);
+        for (int i=nearby.size()-1; i>=0; i--) {
+            Node n = nearby.get(i);
+            // the box around the node is checked first since it is quicker
             if (p.getX() > n.getX() && p.getX() < n.getX() + n.getWidth()
-                    && p.getY() > n.getY() && p.getY() < n.getY() + n.getHeight()) {
+                    && p.getY() > n.getY() && p.getY() < n.getY() + n.getHeight()
+                    && n.getOutline().contains(p.x, p.y)) {
                 return n;
             }
         }
 
         // it must be a minimum of 10 pixels away
-        double maxDistance = instance.getCamera().getZoom() * 10;
+        float maxDistance = instance.getCamera().getZoom() * 10;
         // keep track of the closest line's distance from the point
         double nearestDist = maxDistance;
-        // if no nodes were found, find the nearest line.
-        for (NodeLine nl : instance.getFlowchart().getNodeLines()) {
-            // drag so we can get the points of the line
-            Point[] linePoints = nl.getStyle().getType().renderLine(nl, instance.getCamera(), 
-                    instance.getView().getGraphics(), 
-                    instance.getEventManager().getTextTypeManager().isCursorShowing()&& nl == getLastSelected(), 
-                    instance.getEventManager().getTextTypeManager().getLocationOfTypeCursor(), 
-                    instance.getEventManager().getTextTypeManager().getLinePartTyping());
-            Point.Float p1 = instance.getCamera().convertCanvasToWorld(linePoints[0]);
-            Point.Float p2 = instance.getCamera().convertCanvasToWorld(linePoints[1]);
-
-            // copied the formula from:
-            // http://en.wikipedia.org/wiki/Distance_from_a_point_to_a_line
-            double distance = Math.abs(((p2.getY() - p1.getY()) * p.getX())
-                    - ((p2.getX() - p1.getX()) * p.getY()) + (p2.getX() * p1.getY())
-                    - (p2.getY() * p1.getX())) / Math.sqrt(Math.pow(p2.getY() - p1.getY(), 2)
-                            + Math.pow(p2.getX() - p1.getX(), 2));
-
-            float lowerX = 0;
-            float higherX = 0;
-            float lowerY = 0;
-            float higherY = 0;
-            
-            if (p1.getX() < p2.getX()) {
-                lowerX = (float)(p1.getX() - maxDistance);
-                higherX = (float)(p2.getX() + maxDistance);
-            } else {
-                lowerX = (float)(p2.getX() - maxDistance);
-                higherX = (float)(p1.getX() + maxDistance);
-            }
-            
-            if (p1.getY() < p2.getY()) {
-                lowerY = (float)(p1.getY() - maxDistance);
-                higherY = (float)(p2.getY() + maxDistance);
-            } else {
-                lowerY = (float)(p2.getY() - maxDistance);
-                higherY = (float)(p1.getY() + maxDistance);
-            }
-            
-            if (distance < nearestDist && p.getX() > lowerX && p.getX() < higherX
-                    && p.getY() > lowerY && p.getY() < higherY) {
+        // if no nodes were found, find the nearest line. Only the lines
+        // whose nodes are near the point can be close enough.
+        for (NodeLine nl : instance.getFlowchart().getNodeLinesInArea(p.x - maxDistance,
+                p.y - maxDistance, maxDistance * 2, maxDistance * 2)) {
+            double distance = nl.getGeometry().distanceTo(p.x, p.y);
+            if (distance < nearestDist) {
                 nearestDist = distance;
                 thing = nl;
             }
@@ -267,21 +389,32 @@ public class SelectionManager {
             height = Math.abs(height);
         }
 
-        ArrayList<Selectable> list = new ArrayList<>();
-        for (Node n : instance.getFlowchart().getNodes()) {
+        LinkedIdentitySet<Selectable> found = new LinkedIdentitySet<>();
+        ArrayList<Node> nearby = instance.getFlowchart().getNodesInArea(
+                (float) p.getX(), (float) p.getY(), width, height);
+        for (Node n : nearby) {
+            // only nodes that are all of the way inside of the box
             if (p.getX() < n.getX() && p.getX() + width > n.getX() + n.getWidth()
                     && p.getY() < n.getY() && p.getY() + height > n.getY() + n.getHeight()) {
-                list.add(n);
+                found.add(n);
             }
         }
-        for (NodeLine nl : instance.getFlowchart().getNodeLines()) {
-            if (list.contains(nl.getChild()) && list.contains(nl.getParent())
-                    && !list.contains(nl)) {
-                list.add(nl);
+        // a line is selected when both of its nodes are, so only the lines
+        // of the selected nodes need to be looked at
+        for (Node n : nearby) {
+            if (!found.contains(n)) {
+                continue;
+            }
+            List<NodeLine> lines = n.getOutgoingLines();
+            for (int i = 0; i < lines.size(); i++) {
+                NodeLine nl = lines.get(i);
+                if (found.contains(nl.getChild())) {
+                    found.add(nl);
+                }
             }
         }
 
-        return list;
+        return new ArrayList<>(found);
     }
 
     /**
@@ -290,41 +423,15 @@ public class SelectionManager {
      * @param stuff What will be removed from flowchart.
      */
     public void removeSelectables(ArrayList<Selectable> stuff) {
+        // remove the nodes first, which takes their lines out with them
         for (Selectable s : stuff) {
             if (s instanceof Node) {
-                for (int i=0; i<instance.getFlowchart().getNodes().size(); i++) {
-
-                    if (instance.getFlowchart().getNodes().get(i) == s) {
-                        Node removedNode = instance.getFlowchart().getNodes().get(i);
-                        instance.getFlowchart().getNodes().remove(i);
-                        // look through the other nodes...
-                        for (Node other : instance.getFlowchart().getNodes()) {
-                            // to delete any node line that references the node we're removing
-                            if (other != removedNode) {
-                                for (NodeLine nl : other.getLinesConnected()) {
-                                    // if the line references the removed node AT ALL
-                                    if (nl.getChild() == removedNode || nl.getParent() == removedNode) {
-                                        other.getLinesConnected().remove(nl);
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                         // break out of removing all the lines for that node
-                        break;
-                    }
-                }
-            } else if (s instanceof NodeLine) {
-                for (int i=0; i<instance.getFlowchart().getNodes().size(); i++) {
-                    // only remove the lines from nodes that are not being deleted
-                    if (!stuff.contains(instance.getFlowchart().getNodes().get(i)) ) {
-                        for (int l=0; l<instance.getFlowchart().getNodes().get(i).getLinesConnected().size(); l++) {
-                            if (((NodeLine)s) == instance.getFlowchart().getNodes().get(i).getLinesConnected().get(l)) {
-                                instance.getFlowchart().getNodes().get(i).getLinesConnected().remove(l);
-                            }
-                        }
-                    }
-                }
+                instance.removeNode((Node)s);
+            }
+        }
+        for (Selectable s : stuff) {
+            if (s instanceof NodeLine) {
+                instance.getFlowchart().disconnect((NodeLine)s);
             }
         }
     }
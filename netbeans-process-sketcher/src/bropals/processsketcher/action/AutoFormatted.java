@@ -30,20 +30,26 @@ import java.util.ArrayList;
  */
 public class AutoFormatted extends Action {
 
-    private ArrayList<Node> nodes;
+    private int[] nodes;
     private ArrayList<Point> positions;
     
     public AutoFormatted(ArrayList<Node> nodesMoved, ArrayList<Point> oldPositions) {
-        nodes = nodesMoved;
+        nodes = new int[nodesMoved.size()];
+        for (int i=0; i<nodes.length; i++) {
+            nodes[i] = nodesMoved.get(i).getId();
+        }
         positions = oldPositions;
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo autoformatting");
-        for (int i=0; i<nodes.size(); i++) {
-            nodes.get(i).setX((float)positions.get(i).getX());
-            nodes.get(i).setY((float)positions.get(i).getY());
+        for (int i=0; i<nodes.length; i++) {
+            Node node = instance.getFlowchart().getNode(nodes[i]);
+            if (node != null) {
+                node.setLocation((float)positions.get(i).getX(),
+                        (float)positions.get(i).getY());
+            }
         }
     }
     
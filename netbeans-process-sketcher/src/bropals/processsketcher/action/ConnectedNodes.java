@@ -21,7 +21,6 @@ package bropals.processsketcher.action;
 
 import bropals.processsketcher.action.Action;
 import bropals.processsketcher.FlowchartWindow;
-import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
 
 /**
@@ -31,22 +30,21 @@ import bropals.processsketcher.data.NodeLine;
 public class ConnectedNodes extends Action {
 
     /**
-     * The line that was created from the action occuring.
+     * The ID of the line that was created from the action occuring.
      */
-    private NodeLine line;
+    private int lineId;
     
     public ConnectedNodes(NodeLine lineCreated) {
-        line = lineCreated;
+        lineId = lineCreated.getId();
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undid connecting two lines together");
-        Node parent = line.getParent();
-        Node child = line.getChild();
-        parent.getLinesConnected().remove(line);
-        child.getLinesConnected().remove(line);
-        line = null;
+        NodeLine line = instance.getFlowchart().getNodeLine(lineId);
+        if (line != null) {
+            instance.getFlowchart().disconnect(line);
+        }
     }
     
 }
@@ -31,23 +31,25 @@ import bropals.processsketcher.data.NodeLine;
  */
 public class CreatedConnectedNode extends Action {
 
-    private Node node;
-    private NodeLine line;
+    private int nodeId;
+    private int lineId;
     
     public CreatedConnectedNode(Node createdNode, NodeLine createdNodeLine) {
-        node = createdNode;
-        line = createdNodeLine;
+        nodeId = createdNode.getId();
+        lineId = createdNodeLine.getId();
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo created a node with a connection on it");
-        Node parent = line.getParent();
-        Node child = line.getChild();
-        parent.getLinesConnected().remove(line);
-        child.getLinesConnected().remove(line);
-        line = null;
-        instance.getFlowchart().getNodes().remove(node);
+        NodeLine line = instance.getFlowchart().getNodeLine(lineId);
+        if (line != null) {
+            instance.getFlowchart().disconnect(line);
+        }
+        Node node = instance.getFlowchart().getNode(nodeId);
+        if (node != null) {
+            instance.removeNode(node);
+        }
     }
     
 }
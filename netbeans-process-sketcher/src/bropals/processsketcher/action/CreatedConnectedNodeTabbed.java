@@ -33,28 +33,32 @@ import java.util.ArrayList;
 public class CreatedConnectedNodeTabbed extends Action {
 
     private ArrayList<Selectable> selectables;
-    private Node node;
-    private NodeLine line;
+    private int nodeId;
+    private int lineId;
     
     public CreatedConnectedNodeTabbed(Node createdNode, NodeLine createdLine, ArrayList<Selectable> previouslySelected) {
-        node = createdNode;
-        line = createdLine;
+        nodeId = createdNode.getId();
+        lineId = createdLine.getId();
         selectables = previouslySelected;
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo creating a connected node with tab");
-        Node parent = line.getParent();
-        Node child = line.getChild();
-        parent.getLinesConnected().remove(line);
-        child.getLinesConnected().remove(line);
-        line = null;
-        instance.getFlowchart().getNodes().remove(node);
+        NodeLine line = instance.getFlowchart().getNodeLine(lineId);
+        if (line != null) {
+            instance.getFlowchart().disconnect(line);
+        }
+        Node node = instance.getFlowchart().getNode(nodeId);
+        if (node != null) {
+            instance.removeNode(node);
+        }
         
         // make the select to what it was
+        instance.getEventManager().getSelectionManager().beginUpdate();
         instance.getEventManager().getSelectionManager().clearSelection();
         instance.getEventManager().getSelectionManager().select(selectables);
+        instance.getEventManager().getSelectionManager().endUpdate();
     }
     
 }
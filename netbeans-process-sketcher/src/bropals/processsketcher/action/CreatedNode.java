@@ -29,16 +29,19 @@ import bropals.processsketcher.data.Node;
  */
 public class CreatedNode extends Action {
 
-    private Node node;
+    private int nodeId;
     
     public CreatedNode(Node createdNode) {
-        node = createdNode;
+        nodeId = createdNode.getId();
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo adding a new node");
-        instance.getFlowchart().getNodes().remove(node);
+        Node node = instance.getFlowchart().getNode(nodeId);
+        if (node != null) {
+            instance.removeNode(node);
+        }
     }
     
 }
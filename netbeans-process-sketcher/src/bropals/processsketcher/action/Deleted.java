@@ -53,15 +53,12 @@ public class Deleted extends Action {
             }
         }
         
-        instance.getFlowchart().getNodes().addAll(addedNodes);
+        for (Node node : addedNodes) {
+            instance.getFlowchart().addNode(node);
+        }
         
         for (int i=0; i<addedLines.size(); i++) {
-            if (!addedLines.get(i).getChild().getLinesConnected().contains(addedLines.get(i))) {
-                addedLines.get(i).getChild().getLinesConnected().add(addedLines.get(i));
-            }
-            if (!addedLines.get(i).getParent().getLinesConnected().contains(addedLines.get(i))) {
-                addedLines.get(i).getParent().getLinesConnected().add(addedLines.get(i));
-            }
+            instance.getFlowchart().connect(addedLines.get(i));
         }
     }
     
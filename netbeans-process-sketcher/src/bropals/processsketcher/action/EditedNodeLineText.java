@@ -29,18 +29,22 @@ import bropals.processsketcher.data.NodeLine;
  */
 public class EditedNodeLineText extends EditedText {
 
-    private NodeLine line;
+    private int lineId;
     private int partOfLine;
     
     public EditedNodeLineText(NodeLine lineEdited, String textOld, int partOfTheLine) {
         super(textOld);
-        this.line = lineEdited;
+        this.lineId = lineEdited.getId();
         this.partOfLine = partOfTheLine;
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo changing text on a NodeLine");
+        NodeLine line = instance.getFlowchart().getNodeLine(lineId);
+        if (line == null) {
+            return;
+        }
         switch(partOfLine) {
             case TextTypeManager.CENTER:
                 line.setCenterText(getOldText());
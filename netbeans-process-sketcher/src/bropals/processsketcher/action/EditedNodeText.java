@@ -28,18 +28,21 @@ import bropals.processsketcher.data.Node;
  */
 public class EditedNodeText extends EditedText {
 
-    private Node node;
+    private int nodeId;
     
     public EditedNodeText(Node editedNode, String oldText) {
         super(oldText);
-        node = editedNode;
+        nodeId = editedNode.getId();
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("undo edited node text");
-        node.setInnerText(getOldText());
-        instance.getEventManager().getSelectionManager().select(node);
+        Node node = instance.getFlowchart().getNode(nodeId);
+        if (node != null) {
+            node.setInnerText(getOldText());
+            instance.getEventManager().getSelectionManager().select(node);
+        }
     }
     
 }
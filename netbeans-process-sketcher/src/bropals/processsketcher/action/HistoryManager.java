@@ -21,6 +21,7 @@ package bropals.processsketcher.action;
 
 import bropals.processsketcher.action.Action;
 import bropals.processsketcher.FlowchartWindow;
+import bropals.processsketcher.action.style.EditedStyle;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.util.ArrayList;
@@ -70,6 +71,11 @@ public class HistoryManager {
         Action lastAction = getLastAction();
         if (lastAction != null) {
             lastAction.undo(instance);
+            if (lastAction instanceof EditedStyle) {
+                // keep the counts of the selection's style values right
+                instance.getEventManager().getSelectionManager().restyled(
+                        ((EditedStyle) lastAction).getSelectables());
+            }
             actions.remove(lastAction);
         }
     }
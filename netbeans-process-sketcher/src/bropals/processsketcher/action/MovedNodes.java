@@ -29,7 +29,10 @@ import bropals.processsketcher.data.Node;
  */
 public class MovedNodes extends Action {
 
-    private Node[] nodesMoved;
+    /**
+     * The IDs of the nodes that were moved
+     */
+    private int[] nodesMoved;
     /**
      * How much to offset each node from the initial x and y position
      */
@@ -38,7 +41,10 @@ public class MovedNodes extends Action {
     private float initialYPos;
     
     public MovedNodes(Node[] nodesMoved, float[][] offsetsOfNodes, float initialX, float initialY) {
-        this.nodesMoved = nodesMoved;
+        this.nodesMoved = new int[nodesMoved.length];
+        for (int i=0; i<nodesMoved.length; i++) {
+            this.nodesMoved[i] = nodesMoved[i].getId();
+        }
         this.offsetsOfNodes = offsetsOfNodes;
         this.initialXPos = initialX;
         this.initialYPos = initialY;
@@ -48,8 +54,11 @@ public class MovedNodes extends Action {
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo moving Nodes");
         for (int i=0; i<nodesMoved.length; i++) {
-            nodesMoved[i].setX(initialXPos + offsetsOfNodes[i][0]);
-            nodesMoved[i].setY(initialYPos + offsetsOfNodes[i][1]);
+            Node node = instance.getFlowchart().getNode(nodesMoved[i]);
+            if (node != null) {
+                node.setLocation(initialXPos + offsetsOfNodes[i][0],
+                        initialYPos + offsetsOfNodes[i][1]);
+            }
         }
     }
     
@@ -21,6 +21,7 @@ package bropals.processsketcher.action;
 
 import bropals.processsketcher.action.Action;
 import bropals.processsketcher.FlowchartWindow;
+import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.Selectable;
 import java.util.ArrayList;
 
@@ -30,16 +31,29 @@ import java.util.ArrayList;
  */
 public class Pasted extends Action {
 
-    private ArrayList<Selectable> pasted;
+    /**
+     * The IDs of the nodes that were pasted
+     */
+    private int[] pasted;
     
-    public Pasted(ArrayList<Selectable> pastedStuff) {
-        pasted = pastedStuff;
+    public Pasted(ArrayList<Node> pastedNodes) {
+        pasted = new int[pastedNodes.size()];
+        for (int i=0; i<pasted.length; i++) {
+            pasted[i] = pastedNodes.get(i).getId();
+        }
     }
     
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undo pasted action");
-        instance.getEventManager().getSelectionManager().removeSelectables(pasted);
+        ArrayList<Selectable> pastedStuff = new ArrayList<>();
+        for (int i=0; i<pasted.length; i++) {
+            Node node = instance.getFlowchart().getNode(pasted[i]);
+            if (node != null) {
+                pastedStuff.add(node);
+            }
+        }
+        instance.getEventManager().getSelectionManager().removeSelectables(pastedStuff);
     }
     
 }
@@ -31,12 +31,12 @@ import java.awt.Point;
  */
 public class ScaledNode extends Action {
 
-    private Node node;
+    private int nodeId;
     private Dimension dimension;
     private Point position;
     
     public ScaledNode(Node editedNode, Dimension oldDimension, Point initialPosition) {
-        node = editedNode;
+        nodeId = editedNode.getId();
         dimension = oldDimension;
         position = initialPosition;
     }
@@ -44,10 +44,13 @@ public class ScaledNode extends Action {
     @Override
     public void undo(FlowchartWindow instance) {
         //System.out.println("Undid scaling a node");
+        Node node = instance.getFlowchart().getNode(nodeId);
+        if (node == null) {
+            return;
+        }
         node.setWidth((float)dimension.getWidth());
         node.setHeight((float)dimension.getHeight());
-        node.setX((float)position.getX());
-        node.setY((float)position.getY());
+        node.setLocation((float)position.getX(), (float)position.getY());
     }
     
 }
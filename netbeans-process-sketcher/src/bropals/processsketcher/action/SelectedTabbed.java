@@ -43,10 +43,12 @@ public class SelectedTabbed extends Action {
         //System.out.println("Undo selection with tabbing");
         
         // clear the selection
-        instance.getEventManager().getSelectionManager().getSelected().clear();
+        instance.getEventManager().getSelectionManager().beginUpdate();
+        instance.getEventManager().getSelectionManager().clearSelection();
         
         // reselect the things that were deselected
         instance.getEventManager().getSelectionManager().select(deselected);
+        instance.getEventManager().getSelectionManager().endUpdate();
     }
     
     
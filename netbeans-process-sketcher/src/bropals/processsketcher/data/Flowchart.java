@@ -24,6 +24,7 @@ import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.StyleManager;
 import bropals.processsketcher.style.LineStyle;
 import bropals.processsketcher.style.NodeStyle;
+import bropals.processsketcher.util.LinkedIdentitySet;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
@@ -32,16 +33,70 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 /**
  * An object to represent a flowchart.
  * @author Jonathon
  */
 public class Flowchart implements BinaryData {
+    /**
+     * The ID of a node or line that has never been in a flowchart.
+     */
+    public static final int NO_ID = -1;
     /**
      * The nodes that make up this Flowchart.
      */
     private ArrayList<Node> nodes;
+    /**
+     * A read only view of the nodes, handed out by {@link #getNodes()}.
+     */
+    private List<Node> nodesView;
+    /**
+     * Buckets the nodes by where they are so the nodes in an area
+     * can be found quickly.
+     */
+    private SpatialIndex<Node> nodeIndex;
+    /**
+     * The lines that connect the nodes in this Flowchart. Each line is
+     * only in here once, even though both of its nodes know about it.
+     */
+    private LinkedIdentitySet<NodeLine> lines;
+    /**
+     * A read only view of the lines, handed out by {@link #getNodeLines()}.
+     */
+    private Set<NodeLine> linesView;
+    /**
+     * Buckets the lines by the area between their two nodes.
+     */
+    private SpatialIndex<NodeLine> lineIndex;
+    /**
+     * The nodes that have been in this flowchart, looked up by their ID.
+     * The spot of a node that was taken out is left empty so the node
+     * can get the same ID back if it is put back in.
+     */
+    private ArrayList<Node> nodesById;
+    /**
+     * The lines that have been in this flowchart, looked up by their ID.
+     */
+    private ArrayList<NodeLine> linesById;
+    /**
+     * The positions and sizes of the nodes in this flowchart, by their ID,
+     * or <code>null</code> if the nodes keep their own.
+     */
+    private NodeGeometryStore geometryStore;
+    /**
+     * The box around all of the nodes in this flowchart and their borders.
+     */
+    private WorldBounds bounds;
+    /**
+     * The last snapshot of how the nodes are connected, or <code>null</code>
+     * if nodes or lines have been added or taken out since it was made.
+     */
+    private GraphSnapshot graph;
     /**
      * A reference to the style manager
      */
@@ -57,35 +112,358 @@ public class Flowchart implements BinaryData {
      */
     public Flowchart(boolean def) {
         nodes = new ArrayList<>();
+        nodesView = Collections.unmodifiableList(nodes);
+        nodeIndex = new SpatialIndex<>();
+        lines = new LinkedIdentitySet<>();
+        linesView = Collections.unmodifiableSet(lines);
+        lineIndex = new SpatialIndex<>();
+        nodesById = new ArrayList<>();
+        linesById = new ArrayList<>();
+        geometryStore = new NodeGeometryStore();
+        bounds = new WorldBounds(this);
         if (def) {
             Node firstNode = new Node(100, 100);
-            nodes.add(firstNode);
+            addNode(firstNode);
         }
     }
     
     /**
-     * Gets the nodes that make up this flowchart.
+     * Gets the nodes that make up this flowchart, in the order they are
+     * drawn. The returned list can not be changed; use
+     * {@link #addNode(Node)} and {@link #removeNode(Node)} instead.
      * @return the nodes that make up this flowchart.
      */
-    public ArrayList<Node> getNodes() {
-        return nodes;
+    public List<Node> getNodes() {
+        return nodesView;
     }
-
+    
+    /**
+     * Adds a node to the top of this flowchart.
+     * @param node the node to add.
+     */
+    public void addNode(Node node) {
+        nodes.add(node);
+        graph = null;
+        node.setId(claimId(nodesById, node, node.getId()));
+        node.setGeometryStore(geometryStore);
+        node.setFlowchart(this);
+        nodeIndex.put(node, node.getX(), node.getY(), node.getWidth(), node.getHeight());
+        bounds.add(node.getId(), node.getX(), node.getY(), node.getWidth(),
+                node.getHeight(), node.getStyle().getBorderSize());
+    }
+    
+    /**
+     * Removes a node from this flowchart. The lines connected to the node
+     * are taken out of the flowchart and out of the lists of connected
+     * lines of both of their nodes, so anything that wants to put them
+     * back later has to keep them itself.
+     * @param node the node to remove.
+     * @return <code>true</code> if the node was in this flowchart.
+     */
+    public boolean removeNode(Node node) {
+        if (!nodes.remove(node)) {
+            return false;
+        }
+        // the node is still in this flowchart while its lines are
+        // disconnected, so they come out of its own lists too
+        for (NodeLine nl : new ArrayList<>(node.getLinesConnected())) {
+            disconnect(nl);
+        }
+        node.setFlowchart(null);
+        node.setGeometryStore(null);
+        graph = null;
+        nodesById.set(node.getId(), null);
+        nodeIndex.remove(node);
+        bounds.remove(node.getId());
+        return true;
+    }
+    
+    /**
+     * Connects two nodes with a line. The line is added to this
+     * flowchart and to the lists of connected lines of its parent and
+     * child. Both nodes should already be in this flowchart.
+     * @param line the line to add.
+     */
+    public void connect(NodeLine line) {
+        if (lines.add(line)) {
+            line.setId(claimId(linesById, line, line.getId()));
+            graph = null;
+        }
+        line.getParent().addLine(line);
+        line.getChild().addLine(line);
+        indexLine(line);
+    }
+    
+    /**
+     * Takes a line out of this flowchart. The line is also removed from
+     * the lists of connected lines of its nodes that are still in this
+     * flowchart.
+     * @param line the line to remove.
+     */
+    public void disconnect(NodeLine line) {
+        if (lines.remove(line)) {
+            linesById.set(line.getId(), null);
+            lineIndex.remove(line);
+            graph = null;
+        }
+        if (line.getParent().getFlowchart() == this) {
+            line.getParent().removeLine(line);
+        }
+        if (line.getChild().getFlowchart() == this) {
+            line.getChild().removeLine(line);
+        }
+    }
+    
+    /**
+     * Gets the node in this flowchart that has the given ID.
+     * @param id the ID of the node.
+     * @return the node, or <code>null</code> if no node in this flowchart
+     * has that ID.
+     */
+    public Node getNode(int id) {
+        return id >= 0 && id < nodesById.size() ? nodesById.get(id) : null;
+    }
+    
+    /**
+     * Gets the line in this flowchart that has the given ID.
+     * @param id the ID of the line.
+     * @return the line, or <code>null</code> if no line in this flowchart
+     * has that ID.
+     */
+    public NodeLine getNodeLine(int id) {
+        return id >= 0 && id < linesById.size() ? linesById.get(id) : null;
+    }
+    
+    /**
+     * Gets where the positions and sizes of the nodes in this flowchart
+     * are kept. The values of a node are at its ID.
+     * @return the geometry store of this flowchart, or <code>null</code>
+     * if the nodes keep their own positions and sizes.
+     */
+    public NodeGeometryStore getGeometryStore() {
+        return geometryStore;
+    }
+    
+    /**
+     * Checks to see if the positions and sizes of the nodes in this
+     * flowchart are kept in a geometry store.
+     * @return <code>true</code> if this flowchart has a geometry store.
+     */
+    public boolean isGeometryStoreEnabled() {
+        return geometryStore != null;
+    }
+    
+    /**
+     * Sets whether the positions and sizes of the nodes in this flowchart
+     * are kept in a geometry store, or by each node. The values of the
+     * nodes already in this flowchart are moved over. A geometry store is
+     * used by default; without one, finding the nodes in a large area
+     * always goes through the node index.
+     * @param enabled <code>true</code> to use a geometry store.
+     */
+    public void setGeometryStoreEnabled(boolean enabled) {
+        if (enabled == (geometryStore != null)) {
+            return;
+        }
+        geometryStore = enabled ? new NodeGeometryStore() : null;
+        for (Node node : nodes) {
+            node.setGeometryStore(geometryStore);
+        }
+    }
+    
+    /**
+     * Gets a snapshot of how the nodes in this flowchart are connected.
+     * The same snapshot is handed out until a node or line is added or
+     * taken out.
+     * @return the graph of this flowchart.
+     */
+    public GraphSnapshot snapshotGraph() {
+        if (graph == null) {
+            graph = new GraphSnapshot(nodes, lines, nodesById.size());
+        }
+        return graph;
+    }
+    
+    /**
+     * Works out the ID of a node or line that is being put into this
+     * flowchart. It keeps the ID it already has if the ID came from this
+     * flowchart and is free, so that undoing a delete brings things back
+     * with the same IDs. Otherwise it gets a new ID at the end of the table.
+     * @param <T> the type of object being given an ID.
+     * @param table the table of IDs to put the object in.
+     * @param item the object being put into this flowchart.
+     * @param id the ID that the object has now.
+     * @return the ID of the object in this flowchart.
+     */
+    private static <T> int claimId(ArrayList<T> table, T item, int id) {
+        if (id < 0 || id >= table.size()
+                || (table.get(id) != null && table.get(id) != item)) {
+            id = table.size();
+            table.add(item);
+        } else {
+            table.set(id, item);
+        }
+        return id;
+    }
+    
+    /**
+     * Gets the nodes that overlap an area, in the order they are drawn.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the nodes that overlap the area.
+     */
+    public ArrayList<Node> getNodesInArea(float x, float y, float width, float height) {
+        // an area with more grid cells than there are nodes is quicker to
+        // check by going over the geometry of every node
+        if (geometryStore != null && nodeIndex.countCells(x, y, width, height) > nodes.size()) {
+            return scanNodesInArea(x, y, width, height);
+        }
+        return nodeIndex.query(x, y, width, height);
+    }
+    
     /**
-     * This is only used for getting the node lines. Adding a NodeLine 
-     * to the returned array will NOT add the line to the flowchart.
-     * @return 
-     */
-    public ArrayList<NodeLine> getNodeLines() {
-        ArrayList<NodeLine> lines = new ArrayList<>();
-        for (Node n : getNodes()) {
-            for (NodeLine nl : n.getLinesConnected()) {
-                if (!lines.contains(nl)) {
-                    lines.add(nl);
-                }
+     * Gets the nodes that overlap an area by going over the geometry store,
+     * in the order they are drawn.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the nodes that overlap the area.
+     */
+    private ArrayList<Node> scanNodesInArea(float x, float y, float width, float height) {
+        float left = Math.min(x, x + width);
+        float top = Math.min(y, y + height);
+        float right = Math.max(x, x + width);
+        float bottom = Math.max(y, y + height);
+        float[] xs = geometryStore.getXs();
+        float[] ys = geometryStore.getYs();
+        float[] widths = geometryStore.getWidths();
+        float[] heights = geometryStore.getHeights();
+        // each hit is its draw order and ID packed together, so sorting
+        // them puts them in the order they are drawn
+        long[] hits = new long[nodes.size()];
+        int count = 0;
+        for (int id = geometryStore.nextLive(0); id >= 0; id = geometryStore.nextLive(id + 1)) {
+            if (xs[id] <= right && xs[id] + widths[id] >= left
+                    && ys[id] <= bottom && ys[id] + heights[id] >= top) {
+                hits[count++] = (((long)geometryStore.getDrawOrder(id)) << 32) | id;
             }
         }
-        return lines;
+        Arrays.sort(hits, 0, count);
+        ArrayList<Node> found = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            found.add(nodesById.get((int)hits[i]));
+        }
+        return found;
+    }
+    
+    /**
+     * Gets the lines that might be drawn inside of an area, in the order
+     * they were connected. A line always stays inside of the box around
+     * the two nodes it connects.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the lines that might be inside of the area.
+     */
+    public ArrayList<NodeLine> getNodeLinesInArea(float x, float y, float width, float height) {
+        // like with nodes, an area with more grid cells than there are
+        // lines is quicker to check by going over every line
+        if (lineIndex.countCells(x, y, width, height) > lines.size()) {
+            return scanNodeLinesInArea(x, y, width, height);
+        }
+        return lineIndex.query(x, y, width, height);
+    }
+    
+    /**
+     * Gets the lines that might be drawn inside of an area by going over
+     * every line, in the order they were connected.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the lines that might be inside of the area.
+     */
+    private ArrayList<NodeLine> scanNodeLinesInArea(float x, float y, float width, float height) {
+        float left = Math.min(x, x + width);
+        float top = Math.min(y, y + height);
+        float right = Math.max(x, x + width);
+        float bottom = Math.max(y, y + height);
+        ArrayList<NodeLine> found = new ArrayList<>();
+        for (NodeLine line : lines) {
+            Node parent = line.getParent();
+            Node child = line.getChild();
+            if (Math.min(parent.getX(), child.getX()) <= right
+                    && Math.max(parent.getX() + parent.getWidth(), child.getX() + child.getWidth()) >= left
+                    && Math.min(parent.getY(), child.getY()) <= bottom
+                    && Math.max(parent.getY() + parent.getHeight(), child.getY() + child.getHeight()) >= top) {
+                found.add(line);
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Called by a node in this flowchart when it has been moved or resized.
+     * @param node the node that changed.
+     */
+    void nodeBoundsChanged(Node node) {
+        nodeIndex.put(node, node.getX(), node.getY(), node.getWidth(), node.getHeight());
+        updateBounds(node);
+        for (NodeLine nl : node.getLinesConnected()) {
+            indexLine(nl);
+        }
+    }
+    
+    /**
+     * Lets this flowchart know that the style of one of its nodes has been
+     * changed, since the border of a node is part of the size of the
+     * flowchart. Nothing happens if the node is not in this flowchart.
+     * @param node the node that was restyled.
+     */
+    public void nodeRestyled(Node node) {
+        if (node.getFlowchart() == this) {
+            if (geometryStore != null) {
+                geometryStore.setBorder(node.getId(), node.getStyle().getBorderSize());
+            }
+            updateBounds(node);
+        }
+    }
+    
+    /**
+     * Updates the box of a node in the bounds of this flowchart.
+     * @param node the node that was moved, resized or restyled.
+     */
+    private void updateBounds(Node node) {
+        bounds.update(node.getId(), node.getX(), node.getY(), node.getWidth(),
+                node.getHeight(), node.getStyle().getBorderSize());
+    }
+    
+    /**
+     * Puts a line into the line index using the box around its nodes.
+     * @param line the line to index.
+     */
+    private void indexLine(NodeLine line) {
+        Node parent = line.getParent();
+        Node child = line.getChild();
+        float left = Math.min(parent.getX(), child.getX());
+        float top = Math.min(parent.getY(), child.getY());
+        float right = Math.max(parent.getX() + parent.getWidth(), child.getX() + child.getWidth());
+        float bottom = Math.max(parent.getY() + parent.getHeight(), child.getY() + child.getHeight());
+        lineIndex.put(line, left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Gets the lines that connect the nodes in this flowchart, in the
+     * order they were connected. The returned set can not be changed; use
+     * {@link #connect(NodeLine)} and {@link #disconnect(NodeLine)} instead.
+     * @return the lines in this flowchart.
+     */
+    public Set<NodeLine> getNodeLines() {
+        return linesView;
     }
     
     /**
@@ -98,7 +476,6 @@ public class Flowchart implements BinaryData {
 
     @Override
     public int bytes() {
-        ArrayList<NodeLine> nodeLines = getNodeLines();
         NodeStyle[] nodeStyles = styleManager.listNodeStyles();
         LineStyle[] lineStyles = styleManager.listLineStyles();
         String[] nodeStyleNames = styleManager.listNodeStyleNames();
@@ -111,8 +488,8 @@ public class Flowchart implements BinaryData {
         for (int i=0; i<nodes.size(); i++) {
             nodeSize += nodes.get(i).bytes();
         }
-        for (int i=0; i<nodeLines.size(); i++) {
-            nodeLineSize += nodeLines.get(i).bytes();
+        for (NodeLine nodeLine : lines) {
+            nodeLineSize += nodeLine.bytes();
         }
         for (int i=0; i<nodeStyles.length; i++) {
             nodeStyleSize += (BinaryUtil.bytesForString(nodeStyleNames[i]) + nodeStyles[i].bytes());
@@ -137,7 +514,6 @@ public class Flowchart implements BinaryData {
 
     @Override
     public void toBinary(byte[] arr, int pos) {
-        ArrayList<NodeLine> nodeLines = getNodeLines();
         NodeStyle[] nodeStyles = styleManager.listNodeStyles();
         LineStyle[] lineStyles = styleManager.listLineStyles();
         String[] nodeStyleNames = styleManager.listNodeStyleNames();
@@ -149,7 +525,7 @@ public class Flowchart implements BinaryData {
         //Write the number of nodes
         BinaryUtil.intToBytes(nodes.size(), arr, pos+8);
         //Write the number of node lines
-        BinaryUtil.intToBytes(nodeLines.size(), arr, pos+12);
+        BinaryUtil.intToBytes(lines.size(), arr, pos+12);
         int mark = 16;
         int i;
         for (i=0; i<nodeStyles.length; i++) {
@@ -164,14 +540,20 @@ public class Flowchart implements BinaryData {
             lineStyles[i].toBinary(arr, pos+mark);
             mark += lineStyles[i].bytes();
         }
-        for (Node node : nodes) {
+        //Lines refer to their nodes by the order the nodes are written in,
+        //which is looked up by the ID of the node
+        int[] nodePositions = new int[nodesById.size()];
+        Node node;
+        for (i=0; i<nodes.size(); i++) {
+            node = nodes.get(i);
+            nodePositions[node.getId()] = i;
             node.toBinary(arr, pos+mark);
             mark += node.bytes();
         }
-        for (NodeLine nodeLine : nodeLines) {
-            BinaryUtil.intToBytes(nodes.indexOf(nodeLine.getChild()), arr, pos+mark);
+        for (NodeLine nodeLine : lines) {
+            BinaryUtil.intToBytes(nodePositions[nodeLine.getChild().getId()], arr, pos+mark);
             mark += 4;
-            BinaryUtil.intToBytes(nodes.indexOf(nodeLine.getParent()), arr, pos+mark);
+            BinaryUtil.intToBytes(nodePositions[nodeLine.getParent().getId()], arr, pos+mark);
             mark += 4;
             nodeLine.toBinary(arr, pos+mark);
             mark += (nodeLine.bytes()-8); 
@@ -181,7 +563,21 @@ public class Flowchart implements BinaryData {
 
     @Override
     public void fromBinary(byte[] arr, int pos, FlowchartWindow window) {
+        for (Node node : nodes) {
+            node.setFlowchart(null);
+            node.setGeometryStore(null);
+        }
+        if (geometryStore != null) {
+            geometryStore.clear();
+        }
         nodes.clear();
+        nodeIndex.clear();
+        lines.clear();
+        lineIndex.clear();
+        nodesById.clear();
+        linesById.clear();
+        graph = null;
+        bounds.clear();
         int nodeStyleCount = BinaryUtil.bytesToInt(arr, pos);
         int lineStyleCount = BinaryUtil.bytesToInt(arr, pos+4);
         int nodeCount = BinaryUtil.bytesToInt(arr, pos+8);
@@ -214,7 +610,7 @@ public class Flowchart implements BinaryData {
             node = new Node(0, 0);
             node.fromBinary(arr, pos+mark, window);
             mark += node.bytes();
-            nodes.add(node);
+            addNode(node);
         }
         NodeLine nodeLine;
         int nodeLineChild;
@@ -230,8 +626,7 @@ public class Flowchart implements BinaryData {
             Node parent = nodes.get(nodeLineParent);
             nodeLine.setChild(child);
             nodeLine.setParent(parent);
-            child.getLinesConnected().add(nodeLine);
-            parent.getLinesConnected().add(nodeLine);
+            connect(nodeLine);
             mark += (nodeLine.bytes()-8);
             //Minus 8 because the other bytes have already been added
         }
@@ -275,7 +670,7 @@ public class Flowchart implements BinaryData {
     public Object clone() {
         Flowchart f = new Flowchart(false);
         for (Node node : nodes) {
-            f.getNodes().add((Node)node.clone());
+            f.addNode((Node)node.clone());
         }
         return f;
     }
@@ -294,13 +689,7 @@ public class Flowchart implements BinaryData {
      * @return the X location of the whole flowchart.
      */
     public int getX() {
-        float minX = nodes.get(0).getX()-nodes.get(0).getStyle().getBorderSize();
-        for (int i=1; i<nodes.size(); i++) {
-            if (minX > nodes.get(i).getX()-nodes.get(i).getStyle().getBorderSize()) {
-                minX = nodes.get(i).getX()-nodes.get(i).getStyle().getBorderSize()*2;
-            }
-        }
-        return (int)minX;
+        return bounds.isEmpty() ? 0 : (int)bounds.getLeft();
     }
     
     /**
@@ -308,13 +697,7 @@ public class Flowchart implements BinaryData {
      * @return the Y location of the whole flowchart.
      */
     public int getY() {
-        float minY = nodes.get(0).getY()-nodes.get(0).getStyle().getBorderSize();
-        for (int i=1; i<nodes.size(); i++) {
-            if (minY > nodes.get(i).getY()-nodes.get(i).getStyle().getBorderSize()) {
-                minY = nodes.get(i).getY()-nodes.get(i).getStyle().getBorderSize();
-            }
-        }
-        return (int)minY;
+        return bounds.isEmpty() ? 0 : (int)bounds.getTop();
     }
     
     /**
@@ -322,14 +705,7 @@ public class Flowchart implements BinaryData {
      * @return the world coordinate width.
      */
     public int getWidth() {
-        int minX = getX();
-        float maxX = nodes.get(0).getX()+nodes.get(0).getWidth()+(nodes.get(0).getStyle().getBorderSize()*2);
-        for (int i=1; i<nodes.size(); i++) {
-            if (maxX < nodes.get(i).getX()+nodes.get(i).getWidth()+(nodes.get(i).getStyle().getBorderSize()*2)) {
-                maxX = nodes.get(i).getX()+nodes.get(i).getWidth()+(nodes.get(i).getStyle().getBorderSize()*2);
-            }
-        }
-        return ((int)maxX)-minX+1;
+        return bounds.isEmpty() ? 0 : ((int)bounds.getRight())-getX()+1;
     }
     
     /**
@@ -337,14 +713,7 @@ public class Flowchart implements BinaryData {
      * @return the world coordinate width.
      */
     public int getHeight() {
-        int minY = getY();
-        float maxY = nodes.get(0).getY()+nodes.get(0).getHeight()+(nodes.get(0).getStyle().getBorderSize()*2);
-        for (int i=1; i<nodes.size(); i++) {
-            if (maxY < nodes.get(i).getY()+nodes.get(i).getHeight()+(nodes.get(i).getStyle().getBorderSize()*2)) {
-                maxY = nodes.get(i).getY()+nodes.get(i).getHeight()+(nodes.get(i).getStyle().getBorderSize()*2);
-            }
-        }
-        return ((int)maxY)-minY+1;
+        return bounds.isEmpty() ? 0 : ((int)bounds.getBottom())-getY()+1;
     }
     
     /**
@@ -0,0 +1,280 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.data;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A picture of how the nodes of a flowchart are connected at one point in
+ * time. Nodes are numbered by where they are in the flowchart's list of
+ * nodes, and the lines going out of and coming into every node are packed
+ * into arrays of those numbers, so that the graph can be walked without
+ * making any objects.
+ * <p>
+ * A snapshot never changes after it is made, so any number of threads can
+ * walk it at the same time. Lines that go from a node back to the same
+ * node are left out.
+ * @author Jonathon
+ */
+public class GraphSnapshot {
+
+    /**
+     * The nodes, by their number in this snapshot.
+     */
+    private final Node[] nodes;
+    /**
+     * The number in this snapshot of each node, by the ID of the node, or
+     * <code>-1</code> for an ID that is not in this snapshot.
+     */
+    private final int[] indexById;
+    /**
+     * Where the lines going out of each node start in the out arrays. The
+     * lines of node <code>n</code> are from <code>outOffsets[n]</code> up
+     * to <code>outOffsets[n + 1]</code>.
+     */
+    private final int[] outOffsets;
+    /**
+     * The child of every line going out of a node, grouped by node.
+     */
+    private final int[] outTargets;
+    /**
+     * The line going out of a node, in the same order as the targets.
+     */
+    private final NodeLine[] outLines;
+    /**
+     * Where the lines coming into each node start in the in arrays.
+     */
+    private final int[] inOffsets;
+    /**
+     * The parent of every line coming into a node, grouped by node.
+     */
+    private final int[] inSources;
+    /**
+     * The nodes that have lines going out of them but none coming in.
+     */
+    private final int[] roots;
+    /**
+     * The nodes that have lines coming into them but none going out.
+     */
+    private final int[] sinks;
+
+    /**
+     * Makes a snapshot of the given nodes and lines.
+     * @param nodeList the nodes, in the order they are drawn.
+     * @param lines the lines that connect the nodes.
+     * @param idCount one more than the largest node ID.
+     */
+    GraphSnapshot(List<Node> nodeList, Collection<NodeLine> lines, int idCount) {
+        int nodeCount = nodeList.size();
+        nodes = nodeList.toArray(new Node[nodeCount]);
+        indexById = new int[idCount];
+        for (int i = 0; i < idCount; i++) {
+            indexById[i] = -1;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            indexById[nodes[i].getId()] = i;
+        }
+
+        // count the lines of each node, then turn the counts into offsets
+        outOffsets = new int[nodeCount + 1];
+        inOffsets = new int[nodeCount + 1];
+        int edgeCount = 0;
+        for (NodeLine line : lines) {
+            int parent = indexOf(line.getParent());
+            int child = indexOf(line.getChild());
+            if (parent != -1 && child != -1 && parent != child) {
+                outOffsets[parent + 1]++;
+                inOffsets[child + 1]++;
+                edgeCount++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        // fill in the lines, using the offsets as the next free spot
+        outTargets = new int[edgeCount];
+        outLines = new NodeLine[edgeCount];
+        inSources = new int[edgeCount];
+        int[] nextOut = new int[nodeCount];
+        int[] nextIn = new int[nodeCount];
+        System.arraycopy(outOffsets, 0, nextOut, 0, nodeCount);
+        System.arraycopy(inOffsets, 0, nextIn, 0, nodeCount);
+        for (NodeLine line : lines) {
+            int parent = indexOf(line.getParent());
+            int child = indexOf(line.getChild());
+            if (parent != -1 && child != -1 && parent != child) {
+                outLines[nextOut[parent]] = line;
+                outTargets[nextOut[parent]++] = child;
+                inSources[nextIn[child]++] = parent;
+            }
+        }
+
+        int rootCount = 0;
+        int sinkCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (getInDegree(i) == 0 && getOutDegree(i) > 0) {
+                rootCount++;
+            } else if (getOutDegree(i) == 0 && getInDegree(i) > 0) {
+                sinkCount++;
+            }
+        }
+        roots = new int[rootCount];
+        sinks = new int[sinkCount];
+        rootCount = 0;
+        sinkCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (getInDegree(i) == 0 && getOutDegree(i) > 0) {
+                roots[rootCount++] = i;
+            } else if (getOutDegree(i) == 0 && getInDegree(i) > 0) {
+                sinks[sinkCount++] = i;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of nodes in this snapshot.
+     * @return the number of nodes.
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Gets the number of lines in this snapshot.
+     * @return the number of lines.
+     */
+    public int getEdgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Gets a node by its number in this snapshot.
+     * @param node the number of the node.
+     * @return the node.
+     */
+    public Node getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Gets the number of a node in this snapshot.
+     * @param node the node to look for.
+     * @return the number of the node, or <code>-1</code> if the node was
+     * not in the flowchart when this snapshot was made.
+     */
+    public int indexOf(Node node) {
+        int id = node.getId();
+        if (id < 0 || id >= indexById.length) {
+            return -1;
+        }
+        int index = indexById[id];
+        return index != -1 && nodes[index] == node ? index : -1;
+    }
+
+    /**
+     * Gets the number of lines going out of a node.
+     * @param node the number of the node.
+     * @return the number of children the node has.
+     */
+    public int getOutDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    /**
+     * Gets the number of lines coming into a node.
+     * @param node the number of the node.
+     * @return the number of parents the node has.
+     */
+    public int getInDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * Gets a child of a node.
+     * @param node the number of the node.
+     * @param k which of the node's lines to follow, from <code>0</code> up
+     * to the out degree of the node.
+     * @return the number of the child.
+     */
+    public int getChild(int node, int k) {
+        return outTargets[outOffsets[node] + k];
+    }
+
+    /**
+     * Gets a line going out of a node.
+     * @param node the number of the node.
+     * @param k which of the node's lines to get, in the same order as
+     * {@link #getChild(int, int)}.
+     * @return the line.
+     */
+    public NodeLine getOutLine(int node, int k) {
+        return outLines[outOffsets[node] + k];
+    }
+
+    /**
+     * Gets a parent of a node.
+     * @param node the number of the node.
+     * @param k which of the node's lines to follow back, from
+     * <code>0</code> up to the in degree of the node.
+     * @return the number of the parent.
+     */
+    public int getParent(int node, int k) {
+        return inSources[inOffsets[node] + k];
+    }
+
+    /**
+     * Gets the number of root nodes. A root node has lines going out of
+     * it but none coming into it.
+     * @return the number of root nodes.
+     */
+    public int getRootCount() {
+        return roots.length;
+    }
+
+    /**
+     * Gets a root node, in the order the nodes are drawn.
+     * @param k which root node to get.
+     * @return the number of the root node.
+     */
+    public int getRoot(int k) {
+        return roots[k];
+    }
+
+    /**
+     * Gets the number of sink nodes. A sink node has lines coming into it
+     * but none going out of it.
+     * @return the number of sink nodes.
+     */
+    public int getSinkCount() {
+        return sinks.length;
+    }
+
+    /**
+     * Gets a sink node, in the order the nodes are drawn.
+     * @param k which sink node to get.
+     * @return the number of the sink node.
+     */
+    public int getSink(int k) {
+        return sinks[k];
+    }
+}
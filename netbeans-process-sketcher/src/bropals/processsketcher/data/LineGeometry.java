@@ -0,0 +1,307 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.data;
+
+import bropals.processsketcher.style.Shape;
+
+/**
+ * Where a line between two nodes is in the world: where it starts and ends
+ * on the edges of its nodes and which way it goes. This is worked out
+ * without drawing anything, so it can be used to find the line under the
+ * mouse as well as to draw the line.
+ * @author Jonathon
+ */
+public class LineGeometry {
+
+    /**
+     * How far along the line the center, tail and head texts are, in the
+     * same order as the parts in <code>TextTypeManager</code>.
+     */
+    private static final float[] LABEL_RATIOS = { 0.5f, 0.20f, 0.8f };
+
+    /**
+     * Where the line starts on the edge of its parent node.
+     */
+    private final float startX, startY;
+    /**
+     * Where the line ends on the edge of its child node.
+     */
+    private final float endX, endY;
+    /**
+     * The normalized vector going from the start to the end of the line.
+     */
+    private final float directionX, directionY;
+    /**
+     * The distance from the start to the end of the line.
+     */
+    private final float length;
+    /**
+     * Where the line is drawn to, which is the end of the line unless the
+     * child node has no shape.
+     */
+    private final float tipX, tipY;
+    /**
+     * The points that the two sides of the arrow head are drawn from.
+     */
+    private final float arrow1X, arrow1Y, arrow2X, arrow2Y;
+    /**
+     * The points on the line that the tail, center and head texts are
+     * centered on, indexed by the part of the line.
+     */
+    private final float[] labelX, labelY;
+
+    /**
+     * Works out where a line is.
+     * @param line the line.
+     */
+    public LineGeometry(NodeLine line) {
+        Node par = line.getParent();
+        Node chi = line.getChild();
+
+        float childX = chi.getX() + chi.getWidth() / 2;
+        float childY = chi.getY() + chi.getHeight() / 2;
+        float parentX = par.getX() + par.getWidth() / 2;
+        float parentY = par.getY() + par.getHeight() / 2;
+
+        // create a vector for the direction of the line
+        float diffX = childX - parentX;
+        float diffY = childY - parentY;
+        float lineLength = (float) Math.sqrt((diffX * diffX) + (diffY * diffY));
+        diffX = diffX / lineLength;
+        diffY = diffY / lineLength; //Now they are normalized
+
+        float[] start = scootPointToEdge(parentX + (diffX * par.getWidth() / 2),
+                parentY + (diffY * par.getHeight() / 2), par);
+        float[] end = scootPointToEdge(childX - (diffX * chi.getWidth() / 2),
+                childY - (diffY * chi.getHeight() / 2), chi);
+
+        //Redo the vector thing
+        // create a vector for the direction of the line
+        diffX = end[0] - start[0];
+        diffY = end[1] - start[1];
+        lineLength = (float) Math.sqrt((diffX * diffX) + (diffY * diffY));
+
+        startX = start[0];
+        startY = start[1];
+        endX = end[0];
+        endY = end[1];
+        directionX = diffX / lineLength;
+        directionY = diffY / lineLength;
+        length = lineLength;
+
+        // Force a no shape figure to smash down to its local orgin
+        if (chi.getStyle().getShape() == Shape.NONE) {
+            tipX = chi.getX();
+            tipY = chi.getY();
+        } else {
+            tipX = endX;
+            tipY = endY;
+        }
+
+        // the arrow head goes back 15 units from the end of the line
+        float fromX = directionX * (length - 15);
+        float fromY = directionY * (length - 15);
+        float perpendicularX = -directionY;
+        float perpendicularY = directionX;
+        arrow1X = startX + fromX + perpendicularX * 15;
+        arrow1Y = startY + fromY + perpendicularY * 10;
+        arrow2X = startX + fromX - perpendicularX * 15;
+        arrow2Y = startY + fromY - perpendicularY * 10;
+
+        labelX = new float[LABEL_RATIOS.length];
+        labelY = new float[LABEL_RATIOS.length];
+        for (int i = 0; i < LABEL_RATIOS.length; i++) {
+            labelX[i] = startX + (LABEL_RATIOS[i] * directionX * length);
+            labelY[i] = startY + (LABEL_RATIOS[i] * directionY * length);
+        }
+    }
+
+    /**
+     * Scoots a point to the nearest edge of a node.
+     * @param x the X position of the point to scoot.
+     * @param y the Y position of the point to scoot.
+     * @param node the node to scoot the point to the edge of.
+     * @return the X and Y position of the scooted point.
+     */
+    private static float[] scootPointToEdge(float x, float y, Node node) {
+        //Vector going from the center to the point in question
+        float diffX = node.getX() + node.getWidth() / 2 - x;
+        float diffY = node.getY() + node.getHeight() / 2 - y;
+        if (Math.abs(diffX) > Math.abs(diffY)) {
+            if (diffX < 0) {
+                x = node.getX() + node.getWidth();
+            } else {
+                x = node.getX();
+            }
+        } else {
+            if (diffY < 0) {
+                y = node.getY() + node.getHeight();
+            } else {
+                y = node.getY();
+            }
+        }
+        return new float[] { x, y };
+    }
+
+    /**
+     * Gets the distance from a point to the part of the line that is drawn.
+     * @param x the X position of the point, in world coordinates.
+     * @param y the Y position of the point, in world coordinates.
+     * @return the distance to the closest point on the line, in world units.
+     */
+    public float distanceTo(float x, float y) {
+        float segmentX = tipX - startX;
+        float segmentY = tipY - startY;
+        float lengthSquared = (segmentX * segmentX) + (segmentY * segmentY);
+        // how far along the line the closest point is, from 0 to 1
+        float along = 0;
+        if (lengthSquared > 0) {
+            along = (((x - startX) * segmentX) + ((y - startY) * segmentY)) / lengthSquared;
+            along = Math.max(0, Math.min(1, along));
+        }
+        float diffX = x - (startX + (along * segmentX));
+        float diffY = y - (startY + (along * segmentY));
+        return (float) Math.sqrt((diffX * diffX) + (diffY * diffY));
+    }
+
+    /**
+     * Gets where the line starts on the edge of its parent node.
+     * @return the X position of the start, in world coordinates.
+     */
+    public float getStartX() {
+        return startX;
+    }
+
+    /**
+     * Gets where the line starts on the edge of its parent node.
+     * @return the Y position of the start, in world coordinates.
+     */
+    public float getStartY() {
+        return startY;
+    }
+
+    /**
+     * Gets where the line ends on the edge of its child node.
+     * @return the X position of the end, in world coordinates.
+     */
+    public float getEndX() {
+        return endX;
+    }
+
+    /**
+     * Gets where the line ends on the edge of its child node.
+     * @return the Y position of the end, in world coordinates.
+     */
+    public float getEndY() {
+        return endY;
+    }
+
+    /**
+     * Gets which way the line goes from its start to its end.
+     * @return the X part of the normalized direction.
+     */
+    public float getDirectionX() {
+        return directionX;
+    }
+
+    /**
+     * Gets which way the line goes from its start to its end.
+     * @return the Y part of the normalized direction.
+     */
+    public float getDirectionY() {
+        return directionY;
+    }
+
+    /**
+     * Gets the distance from the start to the end of the line.
+     * @return the length of the line, in world units.
+     */
+    public float getLength() {
+        return length;
+    }
+
+    /**
+     * Gets where the line is drawn to.
+     * @return the X position of the tip, in world coordinates.
+     */
+    public float getTipX() {
+        return tipX;
+    }
+
+    /**
+     * Gets where the line is drawn to.
+     * @return the Y position of the tip, in world coordinates.
+     */
+    public float getTipY() {
+        return tipY;
+    }
+
+    /**
+     * Gets the point that the first side of the arrow head is drawn from.
+     * @return the X position of the point, in world coordinates.
+     */
+    public float getArrow1X() {
+        return arrow1X;
+    }
+
+    /**
+     * Gets the point that the first side of the arrow head is drawn from.
+     * @return the Y position of the point, in world coordinates.
+     */
+    public float getArrow1Y() {
+        return arrow1Y;
+    }
+
+    /**
+     * Gets the point that the second side of the arrow head is drawn from.
+     * @return the X position of the point, in world coordinates.
+     */
+    public float getArrow2X() {
+        return arrow2X;
+    }
+
+    /**
+     * Gets the point that the second side of the arrow head is drawn from.
+     * @return the Y position of the point, in world coordinates.
+     */
+    public float getArrow2Y() {
+        return arrow2Y;
+    }
+
+    /**
+     * Gets the X position of the point on the line that the text of one
+     * part of the line is centered on.
+     * @param part the part of the line, from <code>TextTypeManager</code>.
+     * @return the X position of the point, in world coordinates.
+     */
+    public float getLabelX(int part) {
+        return labelX[part];
+    }
+
+    /**
+     * Gets the Y position of the point on the line that the text of one
+     * part of the line is centered on.
+     * @param part the part of the line, from <code>TextTypeManager</code>.
+     * @return the Y position of the point, in world coordinates.
+     */
+    public float getLabelY(int part) {
+        return labelY[part];
+    }
+}
@@ -22,8 +22,12 @@ package bropals.processsketcher.data;
 import bropals.processsketcher.EventManager;
 import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.style.FontStyle;
+import bropals.processsketcher.style.NodeOutline;
 import bropals.processsketcher.style.NodeStyle;
+import bropals.processsketcher.style.Shape;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * An object to represent a node in a flowchart.
@@ -60,7 +64,22 @@ public class Node implements Selectable, BinaryData {
     /**
      * A list of all the lines connected to this node.
      */
-    private ArrayList<NodeLine> linesConnected;
+    private final ArrayList<NodeLine> linesConnected;
+    /**
+     * The lines connected to this node that point away from it.
+     */
+    private final ArrayList<NodeLine> outgoingLines;
+    /**
+     * The lines connected to this node that point to it.
+     */
+    private final ArrayList<NodeLine> incomingLines;
+    /**
+     * Read-only views of the lists of lines, made once so that walking
+     * over the lines of a node does not make anything new.
+     */
+    private final List<NodeLine> linesConnectedView;
+    private final List<NodeLine> outgoingLinesView;
+    private final List<NodeLine> incomingLinesView;
     /**
      * The text that is inside of this Node.
      */
@@ -69,6 +88,38 @@ public class Node implements Selectable, BinaryData {
      * The style that this node is linked with.
      */
     private String linkedStyle;
+    /**
+     * The flowchart that this node is in, or <code>null</code> if it is
+     * not in a flowchart.
+     */
+    private Flowchart flowchart;
+    /**
+     * The ID of this node in its flowchart, or {@link Flowchart#NO_ID} if
+     * it has never been in a flowchart.
+     */
+    private int id;
+    /**
+     * Where the position and size of this node are kept while it is in a
+     * flowchart, or <code>null</code> if they are kept in this node.
+     */
+    private NodeGeometryStore geometryStore;
+    /**
+     * Goes up by one every time the position or size of this node changes,
+     * so that the lines connected to it can tell when to work out where
+     * they are again.
+     */
+    private int geometryVersion;
+    /**
+     * The outline of this node as of the last time it was asked for, or
+     * <code>null</code> if it has not been made yet.
+     */
+    private NodeOutline outline;
+    /**
+     * The geometry version and the shape of this node when the outline
+     * was made.
+     */
+    private int outlineVersion;
+    private Shape outlineShape;
 
     /**
      * Creates the default node in the specified world coordinate position.
@@ -83,7 +134,13 @@ public class Node implements Selectable, BinaryData {
         width = 100;
         height = 80;
         linesConnected = new ArrayList<>();
+        outgoingLines = new ArrayList<>();
+        incomingLines = new ArrayList<>();
+        linesConnectedView = Collections.unmodifiableList(linesConnected);
+        outgoingLinesView = Collections.unmodifiableList(outgoingLines);
+        incomingLinesView = Collections.unmodifiableList(incomingLines);
         innerText = "";
+        id = Flowchart.NO_ID;
     }
 
     /**
@@ -110,7 +167,7 @@ public class Node implements Selectable, BinaryData {
      * @return the X position of the node, in world coordinates.
      */
     public float getX() {
-        return x;
+        return geometryStore == null ? x : geometryStore.getX(id);
     }
 
     /**
@@ -119,7 +176,30 @@ public class Node implements Selectable, BinaryData {
      * @param x the new X position of this node, in world coordinates.
      */
     public void setX(float x) {
-        this.x = x;
+        if (geometryStore == null) {
+            this.x = x;
+        } else {
+            geometryStore.setX(id, x);
+        }
+        boundsChanged();
+    }
+
+    /**
+     * Sets the X and Y position of this node at once, in world coordinates,
+     * so the flowchart only has to update where the node is one time.
+     *
+     * @param x the new X position of this node, in world coordinates.
+     * @param y the new Y position of this node, in world coordinates.
+     */
+    public void setLocation(float x, float y) {
+        if (geometryStore == null) {
+            this.x = x;
+            this.y = y;
+        } else {
+            geometryStore.setX(id, x);
+            geometryStore.setY(id, y);
+        }
+        boundsChanged();
     }
 
     /**
@@ -128,7 +208,7 @@ public class Node implements Selectable, BinaryData {
      * @return the Y position of the node, in world coordinates.
      */
     public float getY() {
-        return y;
+        return geometryStore == null ? y : geometryStore.getY(id);
     }
 
     /**
@@ -137,7 +217,12 @@ public class Node implements Selectable, BinaryData {
      * @param y the new Y position of this node, in world coordinates.
      */
     public void setY(float y) {
-        this.y = y;
+        if (geometryStore == null) {
+            this.y = y;
+        } else {
+            geometryStore.setY(id, y);
+        }
+        boundsChanged();
     }
 
     /**
@@ -146,7 +231,7 @@ public class Node implements Selectable, BinaryData {
      * @return the width of this node, in world coordinates.
      */
     public float getWidth() {
-        return width;
+        return geometryStore == null ? width : geometryStore.getWidth(id);
     }
 
     /**
@@ -156,7 +241,12 @@ public class Node implements Selectable, BinaryData {
      */
     public void setWidth(float width) {
         if (width >= MINIMUM_SIZE) {
-            this.width = width;
+            if (geometryStore == null) {
+                this.width = width;
+            } else {
+                geometryStore.setWidth(id, width);
+            }
+            boundsChanged();
         }
     }
 
@@ -166,7 +256,7 @@ public class Node implements Selectable, BinaryData {
      * @return the height of this node, in world coordinates.
      */
     public float getHeight() {
-        return height;
+        return geometryStore == null ? height : geometryStore.getHeight(id);
     }
 
     /**
@@ -176,17 +266,175 @@ public class Node implements Selectable, BinaryData {
      */
     public void setHeight(float height) {
         if (height >= MINIMUM_SIZE) {
-            this.height = height;
+            if (geometryStore == null) {
+                this.height = height;
+            } else {
+                geometryStore.setHeight(id, height);
+            }
+            boundsChanged();
+        }
+    }
+
+    /**
+     * Gets the flowchart that this node is in.
+     *
+     * @return the flowchart that this node is in, or <code>null</code> if
+     * it has not been added to a flowchart.
+     */
+    public Flowchart getFlowchart() {
+        return flowchart;
+    }
+
+    /**
+     * Sets the flowchart that this node is in. This is done by the
+     * flowchart when the node is added or removed.
+     *
+     * @param flowchart the flowchart that this node is in.
+     */
+    void setFlowchart(Flowchart flowchart) {
+        this.flowchart = flowchart;
+    }
+
+    /**
+     * Moves the position and size of this node into the geometry store of
+     * its flowchart, or back into this node. This is done by the flowchart
+     * when the node is added or removed, after the node has its ID.
+     *
+     * @param store the store to keep the position and size in, or
+     * <code>null</code> to keep them in this node.
+     */
+    void setGeometryStore(NodeGeometryStore store) {
+        if (geometryStore != null) {
+            x = geometryStore.getX(id);
+            y = geometryStore.getY(id);
+            width = geometryStore.getWidth(id);
+            height = geometryStore.getHeight(id);
+            geometryStore.remove(id);
+        }
+        geometryStore = store;
+        if (store != null) {
+            store.put(id, x, y, width, height, style.getBorderSize());
+        }
+    }
+
+    /**
+     * Gets a number that changes every time the position or size of this
+     * node changes.
+     *
+     * @return the geometry version of this node.
+     */
+    public int getGeometryVersion() {
+        return geometryVersion;
+    }
+
+    /**
+     * Gets the outline of this node in the world. The outline is only made
+     * again when this node has been moved, resized or given a different
+     * shape since it was last asked for.
+     *
+     * @return the outline of this node.
+     */
+    public NodeOutline getOutline() {
+        Shape shape = style.getShape();
+        if (outline == null || outlineVersion != geometryVersion || outlineShape != shape) {
+            outline = new NodeOutline(this);
+            outlineVersion = geometryVersion;
+            outlineShape = shape;
         }
+        return outline;
+    }
+
+    /**
+     * Lets the flowchart know that the position or size of this node has
+     * changed, so that it can keep its spatial index up to date.
+     */
+    private void boundsChanged() {
+        geometryVersion++;
+        if (flowchart != null) {
+            flowchart.nodeBoundsChanged(this);
+        }
+    }
+
+    /**
+     * Gets the ID of this node. The ID is given to the node the first time
+     * it is added to a flowchart, and it keeps it even if it is taken out
+     * and put back later.
+     *
+     * @return the ID of this node, or {@link Flowchart#NO_ID} if it has
+     * never been in a flowchart.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of this node. Only the flowchart gives out IDs.
+     *
+     * @param id the new ID of this node.
+     */
+    void setId(int id) {
+        this.id = id;
     }
 
     /**
-     * Gets the list of node lines that are connected to this node.
+     * Gets the list of node lines that are connected to this node. The
+     * list can not be changed; lines are connected and disconnected
+     * through the flowchart.
      *
      * @return the list of node lines connected to this node.
      */
-    public ArrayList<NodeLine> getLinesConnected() {
-        return linesConnected;
+    public List<NodeLine> getLinesConnected() {
+        return linesConnectedView;
+    }
+
+    /**
+     * Gets the lines that point away from this node to its children, in
+     * the order they were connected. The list can not be changed.
+     *
+     * @return the lines going out of this node.
+     */
+    public List<NodeLine> getOutgoingLines() {
+        return outgoingLinesView;
+    }
+
+    /**
+     * Gets the lines that point to this node from its parents, in the
+     * order they were connected. The list can not be changed.
+     *
+     * @return the lines coming into this node.
+     */
+    public List<NodeLine> getIncomingLines() {
+        return incomingLinesView;
+    }
+
+    /**
+     * Adds a line to the lists of lines connected to this node. Nothing
+     * happens if the line is already connected to this node.
+     *
+     * @param line the line to add.
+     */
+    void addLine(NodeLine line) {
+        if (linesConnected.contains(line)) {
+            return;
+        }
+        linesConnected.add(line);
+        if (line.getParent() == this && line.getChild() != this) {
+            outgoingLines.add(line);
+        } else if (line.getChild() == this && line.getParent() != this) {
+            incomingLines.add(line);
+        }
+    }
+
+    /**
+     * Takes a line out of the lists of lines connected to this node.
+     *
+     * @param line the line to take out.
+     */
+    void removeLine(NodeLine line) {
+        if (linesConnected.remove(line)) {
+            outgoingLines.remove(line);
+            incomingLines.remove(line);
+        }
     }
 
     /**
@@ -261,10 +509,10 @@ public class Node implements Selectable, BinaryData {
 
     @Override
     public void toBinary(byte[] arr, int pos) {
-        BinaryUtil.floatToBytes(x, arr, pos);
-        BinaryUtil.floatToBytes(y, arr, pos + 4);
-        BinaryUtil.floatToBytes(width, arr, pos + 8);
-        BinaryUtil.floatToBytes(height, arr, pos + 12);
+        BinaryUtil.floatToBytes(getX(), arr, pos);
+        BinaryUtil.floatToBytes(getY(), arr, pos + 4);
+        BinaryUtil.floatToBytes(getWidth(), arr, pos + 8);
+        BinaryUtil.floatToBytes(getHeight(), arr, pos + 12);
         BinaryUtil.stringToBytes(innerText, arr, pos + 16);
         if (isLinked()) {
             arr[pos + 17] = 1;
@@ -281,6 +529,12 @@ public class Node implements Selectable, BinaryData {
         y = BinaryUtil.bytesToFloat(arr, pos + 4);
         width = BinaryUtil.bytesToFloat(arr, pos + 8);
         height = BinaryUtil.bytesToFloat(arr, pos + 12);
+        if (geometryStore != null) {
+            geometryStore.setX(id, x);
+            geometryStore.setY(id, y);
+            geometryStore.setWidth(id, width);
+            geometryStore.setHeight(id, height);
+        }
         innerText = BinaryUtil.bytesToString(arr, pos + 16);
         style = new NodeStyle();
         if (arr[pos + 17] == 1) { //Linked
@@ -290,74 +544,4 @@ public class Node implements Selectable, BinaryData {
             style.fromBinary(arr, pos + 18 + BinaryUtil.bytesForString(innerText), window);
         }
     }
-    
-    /**
-     * Gets the index of the first node that is a parent of this node
-     * in the given list. This returns <code>-1</code> if there is no
-     * node in the list that is also a parent of this node.
-     * @param list the list of nodes to search
-     * @return the index of the first node that is also a parent of this node.
-     */
-    public int getFirstOccuranceOfParent(ArrayList<Node> list) {
-        ArrayList<Node> parents = getParentNodes();
-        for (int i=0; i<list.size(); i++) {
-            for (Node parent : parents) {
-                if (list.get(i).equals(parent)) {
-                    return i;
-                }
-            }
-        }
-        return -1;
-    }
-    
-    /**
-     * Gets the index of the first node that is a child of this node
-     * in the given list. This returns <code>-1</code> if there is no
-     * node in the list that is also a child of this node.
-     * @param list the list of nodes to search
-     * @return the index of the first node that is also a child of this node.
-     */
-    public int getFirstOccuranceOfChild(ArrayList<Node> list) {
-        ArrayList<Node> children = getChildNodes();
-        for (int i=0; i<list.size(); i++) {
-            for (Node child : children) {
-                if (list.get(i).equals(child)) {
-                    return i;
-                }
-            }
-        }
-        return -1;
-    }
-
-    /**
-     * Gets the list of nodes that are being pointed to
-     * by this node.
-     * @return the list of nodes that are being pointed to
-     * by this node.
-     */
-    public ArrayList<Node> getChildNodes() {
-        ArrayList<Node> nodes = new ArrayList<>();
-        for (NodeLine nl : getLinesConnected()) {
-            if (!nl.getChild().equals(this)) {
-                nodes.add(nl.getChild());
-            }
-        }
-        return nodes;
-    }
-    
-    /**
-     * Gets the list of nodes that are pointing to
-     * this node.
-     * @return the list of nodes that are pointing to
-     * this node.
-     */
-    public ArrayList<Node> getParentNodes() {
-        ArrayList<Node> nodes = new ArrayList<>();
-        for (NodeLine nl : getLinesConnected()) {
-            if (!nl.getParent().equals(this)) {
-                nodes.add(nl.getParent());
-            }
-        }
-        return nodes;
-    }
 }
@@ -0,0 +1,296 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Keeps the positions, sizes and border sizes of the nodes in a flowchart
+ * in arrays of floats, one array for each value, where the values of a
+ * node are at its ID. A node in a flowchart reads and writes its position and size
+ * through here, so that going over the positions or sizes of every node
+ * reads straight through memory instead of jumping from node to node.
+ * <p>
+ * The values at the ID of a node that is not in the flowchart are left
+ * over from when it was. Which IDs belong to nodes that are in the
+ * flowchart can be found with {@link #isLive(int)} and
+ * {@link #nextLive(int)}.
+ * @author Jonathon
+ */
+public class NodeGeometryStore {
+
+    /**
+     * The number of nodes there is room for when the store is made.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The X positions of the nodes, in world coordinates.
+     */
+    private float[] xs;
+    /**
+     * The Y positions of the nodes, in world coordinates.
+     */
+    private float[] ys;
+    /**
+     * The widths of the nodes, in world units.
+     */
+    private float[] widths;
+    /**
+     * The heights of the nodes, in world units.
+     */
+    private float[] heights;
+    /**
+     * The border sizes of the nodes' styles, in world units.
+     */
+    private float[] borders;
+    /**
+     * The order the nodes were put into the store in, which is the order
+     * they are drawn in.
+     */
+    private int[] drawOrders;
+    /**
+     * The IDs of the nodes that are in the flowchart.
+     */
+    private final BitSet live;
+    /**
+     * The draw order that the next node put into the store will be given.
+     */
+    private int nextDrawOrder;
+
+    /**
+     * Creates an empty store.
+     */
+    NodeGeometryStore() {
+        xs = new float[INITIAL_CAPACITY];
+        ys = new float[INITIAL_CAPACITY];
+        widths = new float[INITIAL_CAPACITY];
+        heights = new float[INITIAL_CAPACITY];
+        borders = new float[INITIAL_CAPACITY];
+        drawOrders = new int[INITIAL_CAPACITY];
+        live = new BitSet(INITIAL_CAPACITY);
+        nextDrawOrder = 0;
+    }
+
+    /**
+     * Puts a node into the store on top of the nodes already in it, making
+     * room for its ID if needed.
+     * @param id the ID of the node.
+     * @param x the X position of the node, in world coordinates.
+     * @param y the Y position of the node, in world coordinates.
+     * @param width the width of the node, in world units.
+     * @param height the height of the node, in world units.
+     * @param border the border size of the node's style, in world units.
+     */
+    void put(int id, float x, float y, float width, float height, float border) {
+        if (id >= xs.length) {
+            int capacity = Math.max(id + 1, xs.length * 2);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+            borders = Arrays.copyOf(borders, capacity);
+            drawOrders = Arrays.copyOf(drawOrders, capacity);
+        }
+        xs[id] = x;
+        ys[id] = y;
+        widths[id] = width;
+        heights[id] = height;
+        borders[id] = border;
+        drawOrders[id] = nextDrawOrder++;
+        live.set(id);
+    }
+
+    /**
+     * Takes a node out of the store. Its values are left where they are.
+     * @param id the ID of the node.
+     */
+    void remove(int id) {
+        live.clear(id);
+    }
+
+    /**
+     * Takes every node out of the store.
+     */
+    void clear() {
+        live.clear();
+        nextDrawOrder = 0;
+    }
+
+    /**
+     * Checks to see if a node with the given ID is in the store.
+     * @param id the ID to check.
+     * @return <code>true</code> if a node with the ID is in the flowchart.
+     */
+    public boolean isLive(int id) {
+        return id >= 0 && live.get(id);
+    }
+
+    /**
+     * Finds the next ID of a node that is in the store. IDs of nodes that
+     * are not in the flowchart are skipped many at a time.
+     * @param fromId the first ID to look at.
+     * @return the first ID at or after <code>fromId</code> that belongs
+     * to a node in the flowchart, or <code>-1</code> if there is none.
+     */
+    public int nextLive(int fromId) {
+        return live.nextSetBit(fromId);
+    }
+
+    /**
+     * Gets the X positions of the nodes, indexed by ID. The array is the
+     * one kept by this store, so it should not be changed, and it can be
+     * longer than the number of IDs. It is replaced when the store grows,
+     * so it should be asked for again after a node is added.
+     * @return the X positions of the nodes, in world coordinates.
+     */
+    public float[] getXs() {
+        return xs;
+    }
+
+    /**
+     * Gets the Y positions of the nodes, indexed by ID. The same rules as
+     * {@link #getXs()} apply.
+     * @return the Y positions of the nodes, in world coordinates.
+     */
+    public float[] getYs() {
+        return ys;
+    }
+
+    /**
+     * Gets the widths of the nodes, indexed by ID. The same rules as
+     * {@link #getXs()} apply.
+     * @return the widths of the nodes, in world units.
+     */
+    public float[] getWidths() {
+        return widths;
+    }
+
+    /**
+     * Gets the heights of the nodes, indexed by ID. The same rules as
+     * {@link #getXs()} apply.
+     * @return the heights of the nodes, in world units.
+     */
+    public float[] getHeights() {
+        return heights;
+    }
+
+    /**
+     * Gets the border sizes of the nodes, indexed by ID. The same rules as
+     * {@link #getXs()} apply.
+     * @return the border sizes of the nodes, in world units.
+     */
+    public float[] getBorders() {
+        return borders;
+    }
+
+    /**
+     * Gets where a node is in the drawing order. A node with a higher
+     * draw order is drawn on top of one with a lower draw order.
+     * @param id the ID of the node.
+     * @return the draw order of the node.
+     */
+    public int getDrawOrder(int id) {
+        return drawOrders[id];
+    }
+
+    /**
+     * Gets the X position of a node.
+     * @param id the ID of the node.
+     * @return the X position of the node, in world coordinates.
+     */
+    public float getX(int id) {
+        return xs[id];
+    }
+
+    /**
+     * Gets the Y position of a node.
+     * @param id the ID of the node.
+     * @return the Y position of the node, in world coordinates.
+     */
+    public float getY(int id) {
+        return ys[id];
+    }
+
+    /**
+     * Gets the width of a node.
+     * @param id the ID of the node.
+     * @return the width of the node, in world units.
+     */
+    public float getWidth(int id) {
+        return widths[id];
+    }
+
+    /**
+     * Gets the height of a node.
+     * @param id the ID of the node.
+     * @return the height of the node, in world units.
+     */
+    public float getHeight(int id) {
+        return heights[id];
+    }
+
+    /**
+     * Sets the X position of a node. This is done by the node.
+     * @param id the ID of the node.
+     * @param x the new X position of the node, in world coordinates.
+     */
+    void setX(int id, float x) {
+        xs[id] = x;
+    }
+
+    /**
+     * Sets the Y position of a node. This is done by the node.
+     * @param id the ID of the node.
+     * @param y the new Y position of the node, in world coordinates.
+     */
+    void setY(int id, float y) {
+        ys[id] = y;
+    }
+
+    /**
+     * Sets the width of a node. This is done by the node.
+     * @param id the ID of the node.
+     * @param width the new width of the node, in world units.
+     */
+    void setWidth(int id, float width) {
+        widths[id] = width;
+    }
+
+    /**
+     * Sets the height of a node. This is done by the node.
+     * @param id the ID of the node.
+     * @param height the new height of the node, in world units.
+     */
+    void setHeight(int id, float height) {
+        heights[id] = height;
+    }
+
+    /**
+     * Sets the border size of a node. This is done by the flowchart when
+     * the node is restyled.
+     * @param id the ID of the node.
+     * @param border the new border size of the node, in world units.
+     */
+    void setBorder(int id, float border) {
+        borders[id] = border;
+    }
+}
@@ -24,6 +24,7 @@ import java.awt.Graphics;
 import bropals.processsketcher.Camera;
 import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.style.FontStyle;
+import bropals.processsketcher.style.Shape;
 
 /**
  * An object to represent a process flow between two nodes.
@@ -60,6 +61,26 @@ public class NodeLine implements Selectable, BinaryData {
      * The style that this node line is linked with.
      */
     private String linkedStyle;
+    /**
+     * The ID of this line in its flowchart, or {@link Flowchart#NO_ID} if
+     * it has never been in a flowchart.
+     */
+    private int id;
+    /**
+     * Where this line was last worked out to be, or <code>null</code> if it
+     * has not been worked out since the nodes were last changed.
+     */
+    private LineGeometry geometry;
+    /**
+     * The geometry versions of the parent and child nodes when the geometry
+     * was worked out.
+     */
+    private int parentVersion, childVersion;
+    /**
+     * Whether or not the child node had no shape when the geometry was
+     * worked out.
+     */
+    private boolean childShapeless;
 
     /**
      * Creates a new NodeLine to relate two nodes together. 
@@ -73,6 +94,26 @@ public class NodeLine implements Selectable, BinaryData {
         tailText = "";
         centerText = "";
         headText = "";
+        id = Flowchart.NO_ID;
+    }
+    
+    /**
+     * Gets the ID of this line. The ID is given to the line the first time
+     * it is connected in a flowchart, and it keeps it even if it is
+     * disconnected and connected again later.
+     * @return the ID of this line, or {@link Flowchart#NO_ID} if it has
+     * never been connected.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of this line. Only the flowchart gives out IDs.
+     * @param id the new ID of this line.
+     */
+    void setId(int id) {
+        this.id = id;
     }
     
     /**
@@ -89,6 +130,7 @@ public class NodeLine implements Selectable, BinaryData {
      */
     public void setParent(Node parent) {
         this.parent = parent;
+        geometry = null;
     }
 
     /**
@@ -105,6 +147,27 @@ public class NodeLine implements Selectable, BinaryData {
      */
     public void setChild(Node child) {
         this.child = child;
+        geometry = null;
+    }
+
+    /**
+     * Gets where this line is in the world. The geometry is only worked
+     * out again when one of the nodes has been moved or resized since it
+     * was last asked for.
+     * @return where this line is.
+     */
+    public LineGeometry getGeometry() {
+        boolean shapeless = child.getStyle().getShape() == Shape.NONE;
+        if (geometry == null
+                || parentVersion != parent.getGeometryVersion()
+                || childVersion != child.getGeometryVersion()
+                || childShapeless != shapeless) {
+            geometry = new LineGeometry(this);
+            parentVersion = parent.getGeometryVersion();
+            childVersion = child.getGeometryVersion();
+            childShapeless = shapeless;
+        }
+        return geometry;
     }
 
     /**
@@ -0,0 +1,377 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * A uniform grid that buckets objects by their bounds in world coordinates,
+ * so the objects inside of an area can be found without looking at every
+ * object in the flowchart.
+ * <p>
+ * An object whose bounds cover more than {@link #MAX_CELLS} cells, such as
+ * a long line between two far apart nodes, is not put in its cells.
+ * It is kept in a separate list that every query looks through, so that
+ * moving it does not have to touch thousands of cells.
+ * <p>
+ * Objects are returned from a query in the order they were put into the
+ * index, which is the order they are drawn in.
+ * @author Jonathon
+ * @param <T> the type of object that is being indexed.
+ */
+public class SpatialIndex<T> {
+
+    /**
+     * The default width and height of a grid cell, in world units.
+     */
+    public static final float DEFAULT_CELL_SIZE = 256;
+    /**
+     * The most cells an object can be put in. Bigger objects are kept in
+     * the list of oversized entries instead.
+     */
+    public static final int MAX_CELLS = 64;
+
+    /**
+     * The width and height of a grid cell, in world units.
+     */
+    private final float cellSize;
+    /**
+     * Sorts entries by the order they were put into the index.
+     */
+    private final Comparator<Entry<T>> insertionOrder;
+    /**
+     * The grid cells that have something in them, keyed by their packed
+     * column and row.
+     */
+    private final HashMap<Long, ArrayList<Entry<T>>> cells;
+    /**
+     * The entry of every object in this index.
+     */
+    private final IdentityHashMap<T, Entry<T>> entries;
+    /**
+     * The entries that cover too many cells to be put in them.
+     */
+    private final ArrayList<Entry<T>> oversized;
+    /**
+     * The order that the next new entry will be given.
+     */
+    private long nextOrder;
+    /**
+     * Changes every query so that entries that span many cells are
+     * only reported once.
+     */
+    private int queryMark;
+
+    /**
+     * Creates an empty spatial index with the default cell size.
+     */
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty spatial index.
+     * @param cellSize the width and height of a grid cell, in world units.
+     */
+    public SpatialIndex(float cellSize) {
+        this.cellSize = cellSize;
+        insertionOrder = new Comparator<Entry<T>>() {
+            @Override
+            public int compare(Entry<T> a, Entry<T> b) {
+                return a.order < b.order ? -1 : (a.order > b.order ? 1 : 0);
+            }
+        };
+        cells = new HashMap<>();
+        entries = new IdentityHashMap<>();
+        oversized = new ArrayList<>();
+        nextOrder = 0;
+        queryMark = 0;
+    }
+
+    /**
+     * Puts an object into the index, or moves it if it is already in
+     * the index. Moving an object does not change its order.
+     * @param item the object to put into the index.
+     * @param x the X position of the object's bounds, in world coordinates.
+     * @param y the Y position of the object's bounds, in world coordinates.
+     * @param width the width of the object's bounds, in world units.
+     * @param height the height of the object's bounds, in world units.
+     */
+    public void put(T item, float x, float y, float width, float height) {
+        Entry<T> entry = entries.get(item);
+        int minColumn = cellOf(Math.min(x, x + width));
+        int minRow = cellOf(Math.min(y, y + height));
+        int maxColumn = cellOf(Math.max(x, x + width));
+        int maxRow = cellOf(Math.max(y, y + height));
+        boolean tooBig = ((long)maxColumn - minColumn + 1) * ((long)maxRow - minRow + 1) > MAX_CELLS;
+        if (entry == null) {
+            entry = new Entry<>(item, nextOrder++);
+            entries.put(item, entry);
+        } else if (tooBig && entry.oversizedIndex >= 0) {
+            // still in the oversized list, so only the bounds need to change
+            entry.setBounds(x, y, width, height);
+            return;
+        } else if (entry.oversizedIndex >= 0) {
+            removeOversized(entry);
+        } else if (tooBig) {
+            unlink(entry);
+        } else if (entry.minColumn != minColumn || entry.minRow != minRow
+                || entry.maxColumn != maxColumn || entry.maxRow != maxRow) {
+            unlink(entry);
+        } else {
+            // still in the same cells, so only the bounds need to change
+            entry.setBounds(x, y, width, height);
+            return;
+        }
+        entry.setBounds(x, y, width, height);
+        if (tooBig) {
+            entry.oversizedIndex = oversized.size();
+            oversized.add(entry);
+            return;
+        }
+        entry.minColumn = minColumn;
+        entry.minRow = minRow;
+        entry.maxColumn = maxColumn;
+        entry.maxRow = maxRow;
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                Long key = key(column, row);
+                ArrayList<Entry<T>> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<>(4);
+                    cells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes an object from the index. Nothing happens if the object
+     * is not in the index.
+     * @param item the object to remove.
+     */
+    public void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return;
+        }
+        if (entry.oversizedIndex >= 0) {
+            removeOversized(entry);
+        } else {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Checks to see if an object is in the index.
+     * @param item the object to check.
+     * @return <code>true</code> if the object is in the index.
+     */
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Gets the number of objects in the index.
+     * @return the number of objects in the index.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of grid cells that an area covers, whether or not
+     * they have anything in them.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the number of cells a query of the area would look in.
+     */
+    public long countCells(float x, float y, float width, float height) {
+        long columns = (long)cellOf(Math.max(x, x + width)) - cellOf(Math.min(x, x + width)) + 1;
+        long rows = (long)cellOf(Math.max(y, y + height)) - cellOf(Math.min(y, y + height)) + 1;
+        return columns * rows;
+    }
+
+    /**
+     * Removes everything from the index.
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+        oversized.clear();
+        nextOrder = 0;
+    }
+
+    /**
+     * Gets all of the objects whose bounds overlap the given area, in
+     * the order they were put into the index.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the objects that overlap the area.
+     */
+    public ArrayList<T> query(float x, float y, float width, float height) {
+        ArrayList<Entry<T>> found = collect(x, y, width, height);
+        Collections.sort(found, insertionOrder);
+        ArrayList<T> result = new ArrayList<>(found.size());
+        for (Entry<T> entry : found) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the entries that overlap the given area, each one only once.
+     * @param x the X position of the area, in world coordinates.
+     * @param y the Y position of the area, in world coordinates.
+     * @param width the width of the area, in world units.
+     * @param height the height of the area, in world units.
+     * @return the overlapping entries, in no particular order.
+     */
+    private ArrayList<Entry<T>> collect(float x, float y, float width, float height) {
+        float left = Math.min(x, x + width);
+        float top = Math.min(y, y + height);
+        float right = Math.max(x, x + width);
+        float bottom = Math.max(y, y + height);
+        ArrayList<Entry<T>> found = new ArrayList<>();
+        queryMark++;
+        for (int i = 0; i < oversized.size(); i++) {
+            Entry<T> entry = oversized.get(i);
+            if (entry.overlaps(left, top, right, bottom)) {
+                entry.mark = queryMark;
+                found.add(entry);
+            }
+        }
+        int maxColumn = cellOf(right);
+        int maxRow = cellOf(bottom);
+        for (int column = cellOf(left); column <= maxColumn; column++) {
+            for (int row = cellOf(top); row <= maxRow; row++) {
+                ArrayList<Entry<T>> cell = cells.get(key(column, row));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry<T> entry = cell.get(i);
+                    if (entry.mark != queryMark && entry.overlaps(left, top, right, bottom)) {
+                        entry.mark = queryMark;
+                        found.add(entry);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Takes an entry out of all of the cells it is in.
+     * @param entry the entry to take out.
+     */
+    private void unlink(Entry<T> entry) {
+        for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                Long key = key(column, row);
+                ArrayList<Entry<T>> cell = cells.get(key);
+                if (cell != null) {
+                    cell.remove(entry);
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes an entry out of the list of oversized entries by moving the
+     * last entry of the list into its spot.
+     * @param entry the entry to take out.
+     */
+    private void removeOversized(Entry<T> entry) {
+        Entry<T> last = oversized.remove(oversized.size() - 1);
+        if (last != entry) {
+            oversized.set(entry.oversizedIndex, last);
+            last.oversizedIndex = entry.oversizedIndex;
+        }
+        entry.oversizedIndex = -1;
+    }
+
+    /**
+     * Gets the column or row of the cell that a world coordinate is in.
+     * @param coordinate the world coordinate.
+     * @return the column or row of the cell.
+     */
+    private int cellOf(float coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs the column and row of a cell into a single key.
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the key of the cell.
+     */
+    private static Long key(int column, int row) {
+        return (((long)column) << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The bounds and cells of one object in the index.
+     * @param <T> the type of object being indexed.
+     */
+    private static class Entry<T> {
+
+        private final T item;
+        private final long order;
+        private float left, top, right, bottom;
+        private int minColumn, minRow, maxColumn, maxRow;
+        private int mark;
+        /**
+         * Where this entry is in the list of oversized entries, or
+         * <code>-1</code> if it is in its cells instead.
+         */
+        private int oversizedIndex;
+
+        private Entry(T item, long order) {
+            this.item = item;
+            this.order = order;
+            oversizedIndex = -1;
+        }
+
+        private void setBounds(float x, float y, float width, float height) {
+            left = Math.min(x, x + width);
+            top = Math.min(y, y + height);
+            right = Math.max(x, x + width);
+            bottom = Math.max(y, y + height);
+        }
+
+        private boolean overlaps(float left, float top, float right, float bottom) {
+            return this.left <= right && this.right >= left
+                    && this.top <= bottom && this.bottom >= top;
+        }
+    }
+}
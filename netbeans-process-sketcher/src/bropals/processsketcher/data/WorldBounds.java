@@ -0,0 +1,243 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.data;
+
+/**
+ * Keeps the box around every node in a flowchart up to date as nodes are
+ * added, moved, resized, restyled and removed, so that the size of the
+ * whole flowchart can be found without looking at every node.
+ * <p>
+ * The box of a node goes out from the node by its border size on the left
+ * and top, and by twice its border size on the right and bottom, which
+ * leaves room for the border when the flowchart is made into an image.
+ * <p>
+ * Only the box around all of the nodes is kept, along with the ID of the
+ * node holding up each of its sides. A node that grows the box makes it
+ * bigger right away. The box is only worked out again when a node holding
+ * up one of its sides moves inward or is removed, and then only the next
+ * time the box is asked for. It is worked out from the geometry store of
+ * the flowchart, or from its nodes if it has no geometry store.
+ * @author Jonathon
+ */
+public class WorldBounds {
+
+    /**
+     * The flowchart whose nodes are in the bounds.
+     */
+    private final Flowchart flowchart;
+    /**
+     * The number of nodes in the bounds.
+     */
+    private int count;
+    /**
+     * The box around all of the nodes.
+     */
+    private float left, top, right, bottom;
+    /**
+     * The IDs of the nodes that the sides of the box are on.
+     */
+    private int leftId, topId, rightId, bottomId;
+    /**
+     * Whether or not the box around all of the nodes has to be worked
+     * out again before it is used.
+     */
+    private boolean stale;
+
+    /**
+     * Creates empty bounds.
+     * @param flowchart the flowchart whose nodes are in the bounds.
+     */
+    WorldBounds(Flowchart flowchart) {
+        this.flowchart = flowchart;
+        count = 0;
+        stale = false;
+    }
+
+    /**
+     * Counts a node that was just put into the flowchart.
+     * @param id the ID of the node.
+     * @param x the X position of the node, in world coordinates.
+     * @param y the Y position of the node, in world coordinates.
+     * @param width the width of the node, in world units.
+     * @param height the height of the node, in world units.
+     * @param border the border size of the node's style, in world units.
+     */
+    void add(int id, float x, float y, float width, float height, float border) {
+        count++;
+        if (count == 1) {
+            stale = false;
+            reset();
+        } else if (stale) {
+            return;
+        }
+        include(id, x, y, width, height, border);
+    }
+
+    /**
+     * Changes the box of a node that is already counted.
+     * @param id the ID of the node.
+     * @param x the X position of the node, in world coordinates.
+     * @param y the Y position of the node, in world coordinates.
+     * @param width the width of the node, in world units.
+     * @param height the height of the node, in world units.
+     * @param border the border size of the node's style, in world units.
+     */
+    void update(int id, float x, float y, float width, float height, float border) {
+        if (stale) {
+            return;
+        }
+        // a side that was holding up the bounds and moved inward
+        // means some other node might be on the edge now
+        if ((id == leftId && x - border > left)
+                || (id == topId && y - border > top)
+                || (id == rightId && x + width + (border * 2) < right)
+                || (id == bottomId && y + height + (border * 2) < bottom)) {
+            stale = true;
+        } else {
+            include(id, x, y, width, height, border);
+        }
+    }
+
+    /**
+     * Stops counting a node that was taken out of the flowchart.
+     * @param id the ID of the node.
+     */
+    void remove(int id) {
+        count--;
+        if (count == 0) {
+            stale = false;
+        } else if (id == leftId || id == topId || id == rightId || id == bottomId) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Stops counting every node.
+     */
+    void clear() {
+        count = 0;
+        stale = false;
+    }
+
+    /**
+     * Checks to see if no nodes are counted.
+     * @return <code>true</code> if there are no nodes in the bounds.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Gets the left side of the box around all of the nodes.
+     * @return the left side, in world coordinates.
+     */
+    public float getLeft() {
+        refresh();
+        return left;
+    }
+
+    /**
+     * Gets the top side of the box around all of the nodes.
+     * @return the top side, in world coordinates.
+     */
+    public float getTop() {
+        refresh();
+        return top;
+    }
+
+    /**
+     * Gets the right side of the box around all of the nodes.
+     * @return the right side, in world coordinates.
+     */
+    public float getRight() {
+        refresh();
+        return right;
+    }
+
+    /**
+     * Gets the bottom side of the box around all of the nodes.
+     * @return the bottom side, in world coordinates.
+     */
+    public float getBottom() {
+        refresh();
+        return bottom;
+    }
+
+    /**
+     * Makes the box around all of the nodes empty, so that the first
+     * node included sets all of its sides.
+     */
+    private void reset() {
+        left = Float.POSITIVE_INFINITY;
+        top = Float.POSITIVE_INFINITY;
+        right = Float.NEGATIVE_INFINITY;
+        bottom = Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Makes the box around all of the nodes bigger so it holds the box
+     * of a node.
+     */
+    private void include(int id, float x, float y, float width, float height, float border) {
+        if (x - border < left) {
+            left = x - border;
+            leftId = id;
+        }
+        if (y - border < top) {
+            top = y - border;
+            topId = id;
+        }
+        if (x + width + (border * 2) > right) {
+            right = x + width + (border * 2);
+            rightId = id;
+        }
+        if (y + height + (border * 2) > bottom) {
+            bottom = y + height + (border * 2);
+            bottomId = id;
+        }
+    }
+
+    /**
+     * Works out the box around all of the nodes again if it is stale.
+     */
+    private void refresh() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        reset();
+        NodeGeometryStore store = flowchart.getGeometryStore();
+        if (store == null) {
+            for (Node node : flowchart.getNodes()) {
+                include(node.getId(), node.getX(), node.getY(), node.getWidth(),
+                        node.getHeight(), node.getStyle().getBorderSize());
+            }
+            return;
+        }
+        float[] xs = store.getXs();
+        float[] ys = store.getYs();
+        float[] widths = store.getWidths();
+        float[] heights = store.getHeights();
+        float[] borders = store.getBorders();
+        for (int id = store.nextLive(0); id >= 0; id = store.nextLive(id + 1)) {
+            include(id, xs[id], ys[id], widths[id], heights[id], borders[id]);
+        }
+    }
+}
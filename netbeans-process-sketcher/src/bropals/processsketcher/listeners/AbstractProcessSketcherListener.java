@@ -23,7 +23,8 @@ import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
 import bropals.processsketcher.data.Selectable;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
 
 /**
  * The abstract listener for all GUI element listeners. Provides
@@ -60,26 +61,35 @@ public abstract class AbstractProcessSketcherListener {
     }
     
     /**
-     * Gets the list of selected nodes.
-     * @return the list of selected nodes.
+     * Gets the set of selected nodes.
+     * @return the set of selected nodes.
      */
-    public ArrayList<Node> getSelectedNodes() {
+    public Set<Node> getSelectedNodes() {
         return getFlowchartWindow().getEventManager().getSelectionManager().getSelectedNodes();
     }
     
     /**
-     * Gets the list of selected node lines.
-     * @return the list of selected node lines.
+     * Gets the set of selected node lines.
+     * @return the set of selected node lines.
      */
-    public ArrayList<NodeLine> getSelectedNodeLines() {
+    public Set<NodeLine> getSelectedNodeLines() {
         return getFlowchartWindow().getEventManager().getSelectionManager().getSelectedNodeLines();
     }
     
     /**
-     * Gets a list of all selected selectables.
-     * @return a list of all selected selectables.
+     * Lets the selection know that the styles of some nodes or lines were
+     * changed.
+     * @param restyled the nodes and lines whose styles were changed.
      */
-    public ArrayList<Selectable> getSelected() {
+    public void stylesChanged(Collection<? extends Selectable> restyled) {
+        getFlowchartWindow().getEventManager().getSelectionManager().restyled(restyled);
+    }
+
+    /**
+     * Gets a set of all selected selectables.
+     * @return a set of all selected selectables.
+     */
+    public Set<Selectable> getSelected() {
         return getFlowchartWindow().getEventManager().getSelectionManager().getSelected();
     }
 }
@@ -61,6 +61,7 @@ public class BorderColorListener extends AbstractProcessSketcherListener impleme
         
          // record it to the history if anything changed
         if (!changedSelectables.isEmpty()) {
+            stylesChanged(changedSelectables);
             getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedBorderColor(changedSelectables, oldValues));
         }
         
@@ -43,18 +43,19 @@ public class BorderSizeListener extends AbstractProcessSketcherListener implemen
         if (value > 0) {
             ArrayList<Selectable> changedSelectables = new ArrayList<>();
             ArrayList<Integer> oldValues = new ArrayList<>();
-            for (int i=0; i<getSelectedNodes().size(); i++) {
+            for (Node n : getSelectedNodes()) {
                 // if the value changed then add it to the list of changed values
-                if (getSelectedNodes().get(i).getStyle().getBorderSize() != value) {
-                    getSelectedNodes().get(i).unlink();
+                if (n.getStyle().getBorderSize() != value) {
+                    n.unlink();
                     getFlowchartWindow().deselectLinkedNodeStyle();
-                    changedSelectables.add(getSelectedNodes().get(i));
-                    oldValues.add(getSelectedNodes().get(i).getStyle().getBorderSize());
-                    getSelectedNodes().get(i).getStyle().setBorderSize(value);
+                    changedSelectables.add(n);
+                    oldValues.add(n.getStyle().getBorderSize());
+                    n.getStyle().setBorderSize(value);
                 }
             }
             // record into history if the font size changed for any number of elements
             if (!changedSelectables.isEmpty()) {
+                stylesChanged(changedSelectables);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedBorderSize(changedSelectables, oldValues));
             }
             getFlowchartWindow().redrawView();
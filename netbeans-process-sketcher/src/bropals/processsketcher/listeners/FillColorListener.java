@@ -62,6 +62,7 @@ public class FillColorListener extends AbstractProcessSketcherListener implement
         
          // record it to the history if anything changed
         if (!changedSelectables.isEmpty()) {
+            stylesChanged(changedSelectables);
             getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedFillColor(changedSelectables, oldValues));
         }
         
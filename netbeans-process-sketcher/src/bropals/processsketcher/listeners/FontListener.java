@@ -54,6 +54,7 @@ public class FontListener extends AbstractProcessSketcherListener implements Act
         }
         // record it to the history if anything changed
         if (!changedSelectables.isEmpty()) {
+            stylesChanged(changedSelectables);
             getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedFontType(changedSelectables, oldValues));
         }
         
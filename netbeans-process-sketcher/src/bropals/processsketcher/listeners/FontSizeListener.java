@@ -42,19 +42,20 @@ public class FontSizeListener extends AbstractProcessSketcherListener implements
         if (value > 0) {
             ArrayList<Selectable> changedSelectables = new ArrayList<>();
             ArrayList<Integer> oldValues = new ArrayList<>();
-            for (int i=0; i<getSelected().size(); i++) {
+            for (Selectable s : getSelected()) {
                 // if the value changed then add it to the list of changed values
-                if (getSelected().get(i).getFontStyle().getFontSize() != value) {
-                    getSelected().get(i).unlink();
+                if (s.getFontStyle().getFontSize() != value) {
+                    s.unlink();
                     getFlowchartWindow().deselectLinkedNodeStyle();
                     getFlowchartWindow().deselectLinkedLineStyle();
-                    changedSelectables.add(getSelected().get(i));
-                    oldValues.add(getSelected().get(i).getFontStyle().getFontSize());
-                    getSelected().get(i).getFontStyle().setFontSize(value);
+                    changedSelectables.add(s);
+                    oldValues.add(s.getFontStyle().getFontSize());
+                    s.getFontStyle().setFontSize(value);
                 }
             }
             // record into history if the font size changed for any number of elements
             if (!changedSelectables.isEmpty()) {
+                stylesChanged(changedSelectables);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedFontSize(changedSelectables, oldValues));
             }
             getFlowchartWindow().redrawView();
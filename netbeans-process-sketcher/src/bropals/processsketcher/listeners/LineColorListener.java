@@ -62,6 +62,7 @@ public class LineColorListener extends AbstractProcessSketcherListener implement
         
          // record it to the history if anything changed
         if (!changedSelectables.isEmpty()) {
+            stylesChanged(changedSelectables);
             getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedLineColor(changedSelectables, oldValues));
         }
         
@@ -58,6 +58,7 @@ public class LineSizeListener extends AbstractProcessSketcherListener implements
             }
             // record into history if the font size changed for any number of elements
             if (!changedSelectables.isEmpty()) {
+                stylesChanged(changedSelectables);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedLineSize(changedSelectables, oldValues));
             }
             getFlowchartWindow().redrawView();
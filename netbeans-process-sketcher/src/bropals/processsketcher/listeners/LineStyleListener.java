@@ -55,6 +55,7 @@ public class LineStyleListener extends AbstractProcessSketcherListener implement
             }
             // add to history if anything changed
             if (!changedSelectables.isEmpty()) {
+                stylesChanged(changedSelectables);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedLineType(changedSelectables, oldTypes));
             }
             
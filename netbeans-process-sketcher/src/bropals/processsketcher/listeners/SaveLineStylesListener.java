@@ -23,6 +23,7 @@ import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.data.NodeLine;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
 import javax.swing.JOptionPane;
 
 /**
@@ -38,12 +39,13 @@ public class SaveLineStylesListener extends AbstractProcessSketcherListener impl
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        NodeLine n = (NodeLine)getSelectedNodeLines().get(0);
+        NodeLine n = getSelectedNodeLines().iterator().next();
         String name = JOptionPane.showInputDialog("Name this style", "style name");
         if (name != null) {
             if (getFlowchartWindow().getStyleManager().isValidLineStyle(name, n.getStyle(), getFlowchartWindow())) {
                 getFlowchartWindow().getStyleManager().saveLineStyle(name, n.getStyle());
                 getFlowchartWindow().getStyleManager().assignStyle(name, n);
+                stylesChanged(Collections.singletonList(n));
                 getFlowchartWindow().refreshLineStyleList();
                 getFlowchartWindow().getSavedLineStylesComboBox().setSelectedItem(name);
             }
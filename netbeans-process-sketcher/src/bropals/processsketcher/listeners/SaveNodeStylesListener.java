@@ -23,6 +23,7 @@ import bropals.processsketcher.FlowchartWindow;
 import bropals.processsketcher.data.Node;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Collections;
 import javax.swing.JOptionPane;
 
 /**
@@ -37,12 +38,13 @@ public class SaveNodeStylesListener extends AbstractProcessSketcherListener impl
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        Node n = (Node)getSelectedNodes().get(0);
+        Node n = getSelectedNodes().iterator().next();
         String name = JOptionPane.showInputDialog("Name this style", "style name");
         if (name != null) {
             if (getFlowchartWindow().getStyleManager().isValidNodeStyle(name, n.getStyle(), getFlowchartWindow())) {
                 getFlowchartWindow().getStyleManager().saveNodeStyle(name, n.getStyle());
                 getFlowchartWindow().getStyleManager().assignStyle(name, n);
+                stylesChanged(Collections.singletonList(n));
                 getFlowchartWindow().refreshNodeStyleList();
                 getFlowchartWindow().getSavedNodeStylesComboBox().setSelectedItem(name);
             }
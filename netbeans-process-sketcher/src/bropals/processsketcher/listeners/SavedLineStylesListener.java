@@ -56,6 +56,7 @@ public class SavedLineStylesListener extends AbstractProcessSketcherListener imp
             }
             
             if (!selectablesChanged.isEmpty()) {
+                stylesChanged(selectablesChanged);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedNodeLineStyle(selectablesChanged, oldStyles));
             }
             getFlowchartWindow().redrawView();
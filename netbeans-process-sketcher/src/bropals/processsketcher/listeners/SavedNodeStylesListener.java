@@ -57,6 +57,7 @@ public class SavedNodeStylesListener extends AbstractProcessSketcherListener imp
             }
             
             if (!selectablesChanged.isEmpty()) {
+                stylesChanged(selectablesChanged);
                 getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedNodeStyle(selectablesChanged, oldStyles));
             }
             
@@ -59,6 +59,7 @@ public class ShapeListener extends AbstractProcessSketcherListener implements Ac
                 }
                 // record it to the history if anything changed
                 if (!changedSelectables.isEmpty()) {
+                    stylesChanged(changedSelectables);
                     getFlowchartWindow().getEventManager().getHistoryManager().addToHistory(new EditedShape(changedSelectables, oldValues));
                 }
 
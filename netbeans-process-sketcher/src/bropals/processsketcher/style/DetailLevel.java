@@ -0,0 +1,51 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+/**
+ * How much of the nodes and lines is drawn. Less is drawn the further out
+ * the camera is zoomed, since small details can't be seen anyway and
+ * drawing them makes the view slow when a large flowchart is in view.
+ * @author Jonathon
+ */
+public enum DetailLevel {
+    /**
+     * Everything is drawn.
+     */
+    FULL,
+    /**
+     * The text is not drawn, and dotted lines are drawn with a stroke
+     * instead of one dot at a time.
+     */
+    REDUCED,
+    /**
+     * Nodes are drawn as plain boxes, and lines are drawn as thin solid
+     * lines without arrow heads.
+     */
+    MINIMAL;
+    
+    /**
+     * Checks to see if text is drawn at this level of detail.
+     * @return true if text is drawn.
+     */
+    public boolean showsText() {
+        return this == FULL;
+    }
+}
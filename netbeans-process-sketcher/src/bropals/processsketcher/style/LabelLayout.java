@@ -0,0 +1,216 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.text.Bidi;
+import java.util.ArrayList;
+
+/**
+ * The rows of a piece of text after it has been wrapped, measured and
+ * turned into glyphs, ready to be drawn.
+ * <p>
+ * Rows with right-to-left text or with scripts that need their glyphs
+ * shaped are not turned into glyphs, and are drawn as strings instead so
+ * they come out the same as they did before they were cached.
+ * @author Jonathon
+ */
+public class LabelLayout {
+
+    /**
+     * Used as the wrap width when the text should stay on one row.
+     */
+    public static final int NO_WRAP = Integer.MAX_VALUE;
+
+    private final String text;
+    private final Font font;
+    private final FontRenderContext frc;
+    private final int wrapWidth;
+    private final String[] rows;
+    private final int[] rowWidths;
+    private final GlyphVector[] glyphs;
+    private final int lineHeight;
+    private final int descent;
+    private final int widestRow;
+
+    /**
+     * Lays out a piece of text using the font of a graphics context.
+     * @param text the text to lay out.
+     * @param g the graphics context with the font the text is drawn in.
+     * @param wrapWidth the width each row can't get longer than, in canvas
+     * units, or {@link #NO_WRAP} to keep the text on one row.
+     */
+    LabelLayout(String text, Graphics g, int wrapWidth) {
+        this.text = text;
+        this.wrapWidth = wrapWidth;
+        font = g.getFont();
+        frc = ((Graphics2D) g).getFontRenderContext();
+        FontMetrics fm = g.getFontMetrics();
+        ArrayList<String> wrapped = wrapWidth == NO_WRAP ? null : wrap(text, fm, g, wrapWidth);
+        rows = wrapped == null ? new String[] { text } : wrapped.toArray(new String[wrapped.size()]);
+        rowWidths = new int[rows.length];
+        glyphs = new GlyphVector[rows.length];
+        int widest = 0;
+        for (int i = 0; i < rows.length; i++) {
+            rowWidths[i] = fm.stringWidth(rows[i]);
+            glyphs[i] = needsLayout(rows[i]) ? null : font.createGlyphVector(frc, rows[i]);
+            widest = Math.max(widest, rowWidths[i]);
+        }
+        widestRow = widest;
+        lineHeight = fm.getHeight();
+        descent = fm.getDescent();
+    }
+
+    /**
+     * Separates text into rows so that no row is longer than the given width,
+     * breaking rows between words.
+     * @param innerText the text to separate.
+     * @param fm the metrics of the font the text is drawn in.
+     * @param g the graphics context with the font the text is drawn in.
+     * @param width the width each row can't get longer than, in canvas units.
+     * @return the rows of text.
+     */
+    private static ArrayList<String> wrap(String innerText, FontMetrics fm, Graphics g, int width) {
+        String[] words = innerText.split(" ");
+        
+        // seperate the text into rows according to their lengths, not extending canvas units
+        // the array for the text. Every element of the array represents one row of text
+        ArrayList<String> text = new ArrayList<>();
+        if (innerText.isEmpty() || words.length == 0) {
+            return text;
+        }
+        StringBuilder row = new StringBuilder(words[0]); // first word goes into the first row
+        for (int i = 1; i < words.length; i++) {
+            int rowLength = row.length();
+            row.append(' ').append(words[i]); // add a space after each word
+            // if the new word does not fit, it goes on the next row
+            if (fm.getStringBounds(row.toString(), g).getWidth() >= width) {
+                // keep the space at the end of the current row
+                row.setLength(rowLength + 1);
+                text.add(row.toString());
+                // create a new row
+                row.setLength(0);
+                row.append(words[i]);
+            }
+        }
+        text.add(row.toString());
+        return text;
+    }
+
+    /**
+     * Checks to see if a row of text has to be laid out by the font when
+     * it is drawn, because it has right-to-left text in it or characters
+     * that change shape depending on the characters around them.
+     * @param row the row of text.
+     * @return <code>true</code> if the row can't be drawn as plain glyphs.
+     */
+    private static boolean needsLayout(String row) {
+        char[] chars = row.toCharArray();
+        return Bidi.requiresBidi(chars, 0, chars.length)
+                || Font.textRequiresLayout(chars, 0, chars.length);
+    }
+
+    /**
+     * Checks to see if this layout is still right for a piece of text.
+     * @param text the text.
+     * @param g the graphics context with the font the text is drawn in.
+     * @param wrapWidth the width each row can't get longer than.
+     * @return <code>true</code> if this layout can be used for the text.
+     */
+    boolean isFor(String text, Graphics g, int wrapWidth) {
+        return this.wrapWidth == wrapWidth
+                && this.text.equals(text)
+                && font.equals(g.getFont())
+                && frc.equals(((Graphics2D) g).getFontRenderContext());
+    }
+
+    /**
+     * Draws the rows of text, one below the other. The graphics context
+     * should have the font that the text was laid out with.
+     * @param g the graphics context to draw with.
+     * @param x the X position of the rows, in canvas coordinates.
+     * @param y the Y position of the first row's baseline, in canvas
+     * coordinates.
+     */
+    public void draw(Graphics2D g, int x, int y) {
+        for (int r = 0; r < glyphs.length; r++) {
+            if (glyphs[r] == null) {
+                g.drawString(rows[r], x, y + (r * lineHeight));
+            } else {
+                g.drawGlyphVector(glyphs[r], x, y + (r * lineHeight));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows.
+     * @return the number of rows, which is 0 if there is no text to draw.
+     */
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    /**
+     * Gets a row of text.
+     * @param row the row.
+     * @return the text in the row.
+     */
+    public String getRow(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Gets the width of a row of text.
+     * @param row the row.
+     * @return the width of the row, in canvas units.
+     */
+    public int getRowWidth(int row) {
+        return rowWidths[row];
+    }
+
+    /**
+     * Gets the width of the widest row of text.
+     * @return the width of the widest row, in canvas units.
+     */
+    public int getWidestRow() {
+        return widestRow;
+    }
+
+    /**
+     * Gets the distance between the baselines of two rows.
+     * @return the height of a row, in canvas units.
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /**
+     * Gets how far the text goes below the baseline of a row.
+     * @return the descent of the font, in canvas units.
+     */
+    public int getDescent() {
+        return descent;
+    }
+}
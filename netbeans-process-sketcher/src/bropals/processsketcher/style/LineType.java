@@ -21,13 +21,15 @@ package bropals.processsketcher.style;
 
 import bropals.processsketcher.Camera;
 import bropals.processsketcher.TextTypeManager;
+import bropals.processsketcher.data.LineGeometry;
 import bropals.processsketcher.data.Node;
 import bropals.processsketcher.data.NodeLine;
-import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 
 /**
  * Represents the different types of lines.
@@ -112,26 +114,18 @@ public enum LineType {
     }
 
     /**
-     * Scoots a point to the nearest edge of a node. Used for line rendering.
-     * @param point the point to scoot.
-     * @param node the node to scoot the point to the edge of.
+     * Gets where a line starts and ends on the canvas when it is drawn.
+     * @param n the node line.
+     * @param camera the camera for the view.
+     * @return An array of two points of integers, representing the start and
+     * end point of the line in canvas units.
      */
-    private void scootPointToEdge(Point.Float point, Node node) {
-        //Vector going from the center to the point in question
-        Point.Float diffVec = new Point.Float(node.getX() + node.getWidth() / 2 - point.x, node.getY() + node.getHeight() / 2 - point.y);
-        if (Math.abs(diffVec.x) > Math.abs(diffVec.y)) {
-            if (diffVec.x < 0) {
-                point.x = node.getX() + node.getWidth();
-            } else {
-                point.x = node.getX();
-            }
-        } else {
-            if (diffVec.y < 0) {
-                point.y = node.getY() + node.getHeight();
-            } else {
-                point.y = node.getY();
-            }
-        }
+    public Point[] getCanvasEndPoints(NodeLine n, Camera camera) {
+        LineGeometry line = n.getGeometry();
+        return new Point[]{
+            new Point(camera.convertWorldToCanvasX(line.getStartX()), camera.convertWorldToCanvasY(line.getStartY())),
+            new Point(camera.convertWorldToCanvasX(line.getTipX()), camera.convertWorldToCanvasY(line.getTipY()))
+        };
     }
 
     /**
@@ -141,6 +135,7 @@ public enum LineType {
      * @param n The node line to render
      * @param camera The camera in the flowchart
      * @param g The graphics to draw it to
+     * @param texts The layouts of the text in the view
      * @param blinkCursor Whether or not the text cursor is showing for this
      * render
      * @param cursorLocation The location of the cursor for text editing
@@ -149,68 +144,29 @@ public enum LineType {
      * @return An array of two points of integers, representing the start and
      * end point of the line in canvas units.
      */
-    public Point[] renderLine(NodeLine n, Camera camera, Graphics g,
+    public Point[] renderLine(NodeLine n, Camera camera, Graphics g, TextLayoutCache texts,
             boolean blinkCursor, int cursorLocation, int partCursorDrawing) {
-        Node par = n.getParent();
         Node chi = n.getChild();
 
-        final int NOT_ASSIGNED = 1023901412;
-        
-        // fix the cursor location if it's less than 0
-        if (cursorLocation < 0) {
-            cursorLocation = 0;
-        }
-
         // Render the Line
-        Point.Float cp = new Point.Float(
-                chi.getX() + chi.getWidth() / 2,
-                chi.getY() + chi.getHeight() / 2
-        );
-
-        Point.Float pp = new Point.Float(
-                par.getX() + par.getWidth() / 2,
-                par.getY() + par.getHeight() / 2
-        );
-
-        // create a vector for the direction of the line
-        float diffX = (float) (cp.getX() - pp.getX());
-        float diffY = (float) (cp.getY() - pp.getY());
-        float lineLength = (float) Math.sqrt((diffX * diffX) + (diffY * diffY));
-        diffX = diffX / lineLength;
-        diffY = diffY / lineLength; //Now they are normalized
-
-        pp.x += (diffX * par.getWidth() / 2);
-        pp.y += (diffY * par.getHeight() / 2);
-
-        scootPointToEdge(pp, par);
-
-        cp.x -= (diffX * chi.getWidth() / 2);
-        cp.y -= (diffY * chi.getHeight() / 2);
-
-        scootPointToEdge(cp, chi);
+        LineGeometry line = n.getGeometry();
+        float diffX = line.getDirectionX();
+        float diffY = line.getDirectionY();
 
-        float tailDist = 0.20f; // 20% of the length
-        float centerDist = 0.5f; // 50% of the length
-        float headDist = 0.8f; // 80% of the length
-
-        //Redo the vector thing
-        // create a vector for the direction of the line
-        diffX = (float) (cp.getX() - pp.getX());
-        diffY = (float) (cp.getY() - pp.getY());
-        lineLength = (float) Math.sqrt((diffX * diffX) + (diffY * diffY));
-        diffX = diffX / lineLength;
-        diffY = diffY / lineLength; //Now they are normalized
-
-        // Force a no shape figure to smash down to its local orgin
-        if (chi.getStyle().getShape() == Shape.NONE) {
-            cp.setLocation(chi.getX(), chi.getY());
-        }
-
-        Point int_p1 = camera.convertWorldToCanvas(pp);
-        Point int_p2 = camera.convertWorldToCanvas(cp);
+        Point int_p1 = new Point(camera.convertWorldToCanvasX(line.getStartX()),
+                camera.convertWorldToCanvasY(line.getStartY()));
+        Point int_p2 = new Point(camera.convertWorldToCanvasX(line.getTipX()),
+                camera.convertWorldToCanvasY(line.getTipY()));
 
         g.setColor(n.getStyle().getLineColor());
-        ((Graphics2D) g).setStroke(new BasicStroke(n.getStyle().getLineSize()));
+        DetailLevel detail = camera.getDetailLevel();
+        if (detail == DetailLevel.MINIMAL) {
+            // only a thin line, without the arrow head or the text
+            ((Graphics2D) g).setStroke(RenderCache.DEFAULT_STROKE);
+            g.drawLine(int_p1.x, int_p1.y, int_p2.x, int_p2.y);
+            return new Point[]{int_p1, int_p2};
+        }
+        ((Graphics2D) g).setStroke(RenderCache.getStroke(n.getStyle().getLineSize()));
 
         switch (this) {
             case SOLID:
@@ -218,19 +174,20 @@ public enum LineType {
                         int_p2.x, int_p2.y);
                 break;
             case DASHED:
-                ((Graphics2D) g).setStroke(new BasicStroke(
-                        n.getStyle().getLineSize(),
-                        BasicStroke.CAP_BUTT,
-                        BasicStroke.JOIN_BEVEL,
-                        1f,
-                        new float[]{10},
-                        0f
-                ));
+                ((Graphics2D) g).setStroke(RenderCache.getDashedStroke(n.getStyle().getLineSize()));
                 g.drawLine(int_p1.x, int_p1.y,
                         int_p2.x, int_p2.y);
-                ((Graphics2D) g).setStroke(new BasicStroke(n.getStyle().getLineSize()));
+                ((Graphics2D) g).setStroke(RenderCache.getStroke(n.getStyle().getLineSize()));
                 break;
             case DOTTED:
+                if (!detail.showsText()) {
+                    // the dots are too small to be worth drawing one at a time
+                    ((Graphics2D) g).setStroke(RenderCache.getDottedStroke(n.getStyle().getLineSize()));
+                    g.drawLine(int_p1.x, int_p1.y,
+                            int_p2.x, int_p2.y);
+                    ((Graphics2D) g).setStroke(RenderCache.getStroke(n.getStyle().getLineSize()));
+                    break;
+                }
                 float canvasLineLength = (float) Math.sqrt(
                         (((int_p2.x - int_p1.x) * (int_p2.x - int_p1.x)))
                         + (((int_p2.y - int_p1.y) * (int_p2.y - int_p1.y)))
@@ -246,115 +203,167 @@ public enum LineType {
         
         if (chi.getStyle().getShape() != Shape.NONE) {
             //Render the arrow head
-            float pdiffX = -diffY;
-            float pdiffY = diffX;
-
-            float fromX = diffX * (lineLength - 15);
-            float fromY = diffY * (lineLength - 15);
-
-            Point.Float arrowHead1 = new Point.Float(pp.x + fromX + pdiffX * 15, pp.y + fromY + pdiffY * 10);
-            Point.Float arrowHead2 = new Point.Float(pp.x + fromX - pdiffX * 15, pp.y + fromY - pdiffY * 10);
-
-            Point iarrow1 = camera.convertWorldToCanvas(arrowHead1);
-            Point iarrow2 = camera.convertWorldToCanvas(arrowHead2);
-
-            g.drawLine(iarrow1.x, iarrow1.y, int_p2.x, int_p2.y);
-            g.drawLine(iarrow2.x, iarrow2.y, int_p2.x, int_p2.y);
+            g.drawLine(camera.convertWorldToCanvasX(line.getArrow1X()),
+                    camera.convertWorldToCanvasY(line.getArrow1Y()), int_p2.x, int_p2.y);
+            g.drawLine(camera.convertWorldToCanvasX(line.getArrow2X()),
+                    camera.convertWorldToCanvasY(line.getArrow2Y()), int_p2.x, int_p2.y);
         }
 
-        ((Graphics2D) g).setStroke(new BasicStroke(1));
+        ((Graphics2D) g).setStroke(RenderCache.DEFAULT_STROKE);
+        if (!detail.showsText()) {
+            return new Point[]{int_p1, int_p2};
+        }
         // Render the Text
 
         // set the font for drawing the font
-        g.setFont(n.getStyle().getFontType().deriveFont((n.getStyle().getFontSize()) / camera.getZoom()));
+        g.setFont(RenderCache.getFont(n.getStyle().getFontType(), n.getStyle().getFontSize() / camera.getZoom()));
         g.setColor(n.getStyle().getFontColor());
 
-        // Variables to track the location of the cursor
-        float originalParentPointX = (float) pp.getX();
-        float originalParentPointY = (float) pp.getY();
-        int cursorRenderX = 0;
-        int cursorRenderY = 0;
-
         // draw the tail, center, and head texts
-        /// draw the Tail text
-        int[] info = renderText(n.getTailText(), tailDist, originalParentPointX, originalParentPointY,
-                TextTypeManager.TAIL, partCursorDrawing, lineLength, diffY, diffX, g, cursorLocation, 
-                camera, blinkCursor);
-        if (partCursorDrawing == TextTypeManager.TAIL) {
-            cursorRenderX = info[0];
-            cursorRenderY = info[1];
+        renderText(n, TextTypeManager.TAIL, line, g, texts, camera);
+        renderText(n, TextTypeManager.CENTER, line, g, texts, camera);
+        renderText(n, TextTypeManager.HEAD, line, g, texts, camera);
+
+        // draw the blinking cursor
+        if (blinkCursor) {
+            renderTypeCursor(n, camera, g, texts, cursorLocation, partCursorDrawing);
         }
+        return new Point[]{int_p1, int_p2};
+    }
 
-        // Draw the Center text
-        info = renderText(n.getCenterText(), centerDist, originalParentPointX, originalParentPointY,
-                TextTypeManager.CENTER, partCursorDrawing, lineLength, diffY, diffX, g, cursorLocation, 
-                camera, blinkCursor);
-        if (partCursorDrawing == TextTypeManager.CENTER) {
-            cursorRenderX = info[0];
-            cursorRenderY = info[1];
+    /**
+     * Draws the text cursor of a line that is being typed in, without
+     * drawing the line itself.
+     * @param n the node line being typed in.
+     * @param camera the camera for the view.
+     * @param g the graphics context to draw with.
+     * @param texts the layouts of the text in the view.
+     * @param cursorLocation the location of the cursor in the text.
+     * @param partCursorDrawing what part of the line the cursor is in.
+     */
+    public void renderTypeCursor(NodeLine n, Camera camera, Graphics g, TextLayoutCache texts,
+            int cursorLocation, int partCursorDrawing) {
+        if (!camera.getDetailLevel().showsText()) {
+            return;
         }
+        Rectangle cursor = getTypeCursorBounds(n, camera, g, texts, cursorLocation, partCursorDrawing);
+        g.setColor(Color.BLACK);
+        g.fillRect(cursor.x, cursor.y, cursor.width, cursor.height);
+    }
 
-        /// draw the Head text
-        info = renderText(n.getHeadText(), headDist, originalParentPointX, originalParentPointY,
-                TextTypeManager.HEAD, partCursorDrawing, lineLength, diffY, diffX, g, cursorLocation, 
-                camera, blinkCursor);
-        if (partCursorDrawing == TextTypeManager.HEAD) {
-            cursorRenderX = info[0];
-            cursorRenderY = info[1];
+    /**
+     * Gets the area of the canvas that the text cursor of a line covers.
+     * @param n the node line being typed in.
+     * @param camera the camera for the view.
+     * @param g a graphics context to measure the text with.
+     * @param texts the layouts of the text in the view.
+     * @param cursorLocation the location of the cursor in the text.
+     * @param partCursorDrawing what part of the line the cursor is in.
+     * @return the area of the cursor, in canvas coordinates.
+     */
+    public Rectangle getTypeCursorBounds(NodeLine n, Camera camera, Graphics g, TextLayoutCache texts,
+            int cursorLocation, int partCursorDrawing) {
+        String text = getText(n, partCursorDrawing);
+        // fix the cursor location if it's out of the text
+        if (cursorLocation < 0) {
+            cursorLocation = 0;
+        }
+        if (cursorLocation > text.length()) {
+            cursorLocation = text.length();
         }
+        g.setFont(RenderCache.getFont(n.getStyle().getFontType(), n.getStyle().getFontSize() / camera.getZoom()));
+        FontMetrics fm = g.getFontMetrics();
+        Point.Float pp = findTextPosition(n, partCursorDrawing, n.getGeometry(), g, texts, camera);
+        return new Rectangle(camera.convertWorldToCanvasX((float) pp.getX())
+                    + fm.stringWidth(text.substring(0, cursorLocation)),
+                camera.convertWorldToCanvasY((int) pp.getY()) - fm.getHeight() - 2,
+                3, fm.getHeight() + 4);
+    }
 
-        // draw the blinking cursor
-        if (blinkCursor) {
-            g.setColor(Color.BLACK);
-            g.fillRect(cursorRenderX, cursorRenderY,
-                    3, g.getFontMetrics().getHeight() + 4);
+    /**
+     * Gets the area of the canvas that a line covers when it is drawn, along
+     * with its arrow head, its text and the text cursor.
+     * @param n the node line.
+     * @param camera the camera for the view.
+     * @param g a graphics context to measure the text with.
+     * @param texts the layouts of the text in the view.
+     * @return the area that the line covers, in canvas coordinates.
+     */
+    public Rectangle getCanvasBounds(NodeLine n, Camera camera, Graphics g, TextLayoutCache texts) {
+        Node par = n.getParent();
+        Node chi = n.getChild();
+        // the line always stays inside of the box around the two nodes
+        int left = camera.convertWorldToCanvasX(Math.min(par.getX(), chi.getX()));
+        int top = camera.convertWorldToCanvasY(Math.min(par.getY(), chi.getY()));
+        int right = camera.convertWorldToCanvasX(Math.max(par.getX() + par.getWidth(), chi.getX() + chi.getWidth()));
+        int bottom = camera.convertWorldToCanvasY(Math.max(par.getY() + par.getHeight(), chi.getY() + chi.getHeight()));
+        Rectangle bounds = new Rectangle(left, top, right - left, bottom - top);
+        // the arrow head and the dots can stick out past the line
+        int spread = camera.convertWorldToCanvasLength(15) + (n.getStyle().getLineSize() * 2);
+        bounds.grow(spread, spread);
+
+        // the text is centered on the line and drawn above it
+        g.setFont(RenderCache.getFont(n.getStyle().getFontType(), n.getStyle().getFontSize() / camera.getZoom()));
+        FontMetrics fm = g.getFontMetrics();
+        int widest = Math.max(
+                texts.getLayout(n, TextTypeManager.TAIL, n.getTailText(), g, LabelLayout.NO_WRAP).getRowWidth(0),
+                Math.max(texts.getLayout(n, TextTypeManager.CENTER, n.getCenterText(), g, LabelLayout.NO_WRAP).getRowWidth(0),
+                texts.getLayout(n, TextTypeManager.HEAD, n.getHeadText(), g, LabelLayout.NO_WRAP).getRowWidth(0)));
+        // leave room for the cursor at the end of the text
+        bounds.add(new Rectangle(left - (widest / 2) - 4, top - fm.getHeight() - 6,
+                (right - left) + widest + 8, (bottom - top) + fm.getHeight() + fm.getDescent() + 12));
+        return bounds;
+    }
 
+    /**
+     * Gets the text of one part of a line.
+     * @param n the node line.
+     * @param part the part of the line.
+     * @return the text of that part of the line.
+     */
+    private String getText(NodeLine n, int part) {
+        switch (part) {
+            case TextTypeManager.TAIL:
+                return n.getTailText();
+            case TextTypeManager.HEAD:
+                return n.getHeadText();
         }
-        return new Point[]{int_p1, int_p2};
+        return n.getCenterText();
     }
-    
+
+    /**
+     * Finds where the text of one part of a line is drawn. The text is
+     * centered on the line, 20% of the way along it for the tail, 50% of the
+     * way for the center and 80% of the way for the head.
+     * @param n the node line.
+     * @param part the part of the line.
+     * @param line where the line is.
+     * @param g the graphics context with the font the text is drawn in.
+     * @param texts the layouts of the text in the view.
+     * @param camera the camera context.
+     * @return the position of the start of the text's baseline, in world
+     * coordinates.
+     */
+    private Point.Float findTextPosition(NodeLine n, int part, LineGeometry line, Graphics g, TextLayoutCache texts, Camera camera) {
+        LabelLayout layout = texts.getLayout(n, part, getText(n, part), g, LabelLayout.NO_WRAP);
+        float xPositionOffset = camera.convertCanvasToWorldLength(layout.getRowWidth(0)) / 2;
+        return new Point.Float(line.getLabelX(part) - xPositionOffset, line.getLabelY(part));
+    }
+
     /**
      * A method that takes away the copy pasting of rendering the text
-     * @param text The text to draw
-     * @param distanceRatio The ratio of where on the line the text is drawn. 
-     *              It's a value from 0 to 1
-     * @param originalParentPointX The x position where the line originates
-     * @param originalParentPointY The y position where the line originates
-     * @param cursorConditional The value to test the partCursorDrawing value to 
-     *          to decide if the cursor will be drawn on this text
-     * @param partCursorDrawing The value indicating what part of the line the cursor
-     *              will be drawn on
-     * @param lineLength The length of the line
-     * @param diffY The s component of the normalized vector for the line
-     * @param diffX The y component of the normalized vector for the line
+     * @param n The line that the text belongs to
+     * @param part The part of the line that the text is for
+     * @param line Where the line is
      * @param g The graphics context
-     * @param cursorLocation The location of the cursor
+     * @param texts The layouts of the text in the view
      * @param camera The camera context
-     * @param blinkCursor Whether or not the cursor will be showing
-     * @return 
      */
-    private int[] renderText(String text, float distanceRatio, float originalParentPointX, 
-            float originalParentPointY, int cursorConditional, int partCursorDrawing, float lineLength, 
-            float diffY, float diffX, Graphics g, int cursorLocation, Camera camera, boolean blinkCursor) {
-        int cursorRenderX = 0;
-        int cursorRenderY = 0;
-        float xPositionOffset = camera.convertCanvasToWorldLength(g.getFontMetrics().stringWidth(text)) / 2;
-        Point.Float pp = new Point.Float(originalParentPointX + (distanceRatio * diffX * lineLength) - xPositionOffset,
-                originalParentPointY + (distanceRatio * diffY * lineLength));
-        if (blinkCursor && partCursorDrawing == cursorConditional) {
-            if (text.length() > 0 && cursorLocation > text.length()) {
-                cursorLocation = text.length();
-            } else if (text.length() == 0) {
-                cursorLocation = 0;
-            }
-            cursorRenderX = camera.convertWorldToCanvasX((float) pp.getX())
-                    + (int) (g.getFontMetrics().stringWidth(text.substring(0, cursorLocation)));
-            cursorRenderY = (int) (camera.convertWorldToCanvasY((int) pp.getY()) - g.getFontMetrics().getHeight() - 2);
-        }
-        g.drawString(text,
+    private void renderText(NodeLine n, int part, LineGeometry line, Graphics g, TextLayoutCache texts, Camera camera) {
+        LabelLayout layout = texts.getLayout(n, part, getText(n, part), g, LabelLayout.NO_WRAP);
+        Point.Float pp = findTextPosition(n, part, line, g, texts, camera);
+        layout.draw((Graphics2D) g,
                 (int) camera.convertWorldToCanvasX((float) pp.getX()),
                 (int) camera.convertWorldToCanvasY((float) pp.getY()));
-        
-        return new int[]{cursorRenderX, cursorRenderY};
     }
 }
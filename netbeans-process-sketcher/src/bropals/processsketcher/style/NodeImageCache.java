@@ -0,0 +1,345 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+import bropals.processsketcher.Camera;
+import bropals.processsketcher.data.Node;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps an image of each node as it was last drawn, so that a node that
+ * has not changed can be copied onto the view instead of being drawn
+ * again. The images are made at a few set zoom factors and stretched to
+ * the zoom factors in between, so zooming does not make them again every
+ * time. An image is thrown away when anything that changes how its node
+ * looks is changed, and the images that were used the longest time ago
+ * are thrown away when the images take up too much memory.
+ * @author Jonathon
+ */
+public class NodeImageCache {
+
+    /**
+     * The default number of bytes that the images can take up.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 32L * 1024 * 1024;
+    /**
+     * The number of zoom factors that images are made at for every time
+     * the zoom factor doubles.
+     */
+    private static final int ZOOM_STEPS_PER_DOUBLING = 4;
+
+    /**
+     * The images of the nodes, with the least recently used image first.
+     */
+    private final LinkedHashMap<Node, CachedImage> images;
+    /**
+     * The number of bytes that the images can take up.
+     */
+    private long memoryBudget;
+    /**
+     * The number of bytes that the images take up right now.
+     */
+    private long memoryUsed;
+    /**
+     * Whether or not nodes are drawn from their images.
+     */
+    private boolean enabled;
+    /**
+     * The layouts of the text of the nodes in the same view.
+     */
+    private final TextLayoutCache texts;
+    /**
+     * The camera that the images are drawn with, set to the zoom factor
+     * of the images being made.
+     */
+    private final Camera imageCamera;
+
+    /**
+     * Creates an empty cache with the default memory budget.
+     * @param texts the layouts of the text of the nodes in the same view.
+     */
+    public NodeImageCache(TextLayoutCache texts) {
+        this.texts = texts;
+        imageCamera = new Camera();
+        images = new LinkedHashMap<>(16, 0.75f, true);
+        memoryBudget = DEFAULT_MEMORY_BUDGET;
+        memoryUsed = 0;
+        enabled = true;
+    }
+
+    /**
+     * Draws a node from its image, making the image first if the node
+     * does not have one or if the node has changed since it was made.
+     * The node is drawn without a text cursor.
+     * @param node the node to draw.
+     * @param camera the camera for the view.
+     * @param g the graphics context to draw to.
+     * @param backgroundColor the background color of the view.
+     */
+    public void drawNode(Node node, Camera camera, Graphics g, Color backgroundColor) {
+        Shape shape = node.getStyle().getShape();
+        if (shape == Shape.NONE) {
+            return;
+        }
+        if (!enabled || camera.getDetailLevel() != DetailLevel.FULL) {
+            // without text, nodes are quicker to draw than to cache
+            shape.renderShape(node, camera, g, texts, false, 0, backgroundColor);
+            return;
+        }
+        int zoomStep = getZoomStep(camera.getZoom());
+        CachedImage cached = images.get(node);
+        if (cached == null || !cached.isFor(node, zoomStep, backgroundColor)) {
+            setUpImageCamera(camera, zoomStep);
+            Rectangle bounds = shape.getCanvasBounds(node, imageCamera, g, texts);
+            long bytes = 4L * bounds.width * bounds.height;
+            if (bounds.isEmpty() || bytes > memoryBudget / 8) {
+                // too big to be worth keeping
+                invalidate(node);
+                shape.renderShape(node, camera, g, texts, false, 0, backgroundColor);
+                return;
+            }
+            cached = render(node, zoomStep, bounds, backgroundColor, cached);
+        }
+        int x = camera.convertWorldToCanvasX(node.getX());
+        int y = camera.convertWorldToCanvasY(node.getY());
+        if (cached.zoom == camera.getZoom()) {
+            g.drawImage(cached.image, x + cached.offsetX, y + cached.offsetY, null);
+            return;
+        }
+        // stretch the image from its zoom factor to the camera's
+        float scale = cached.zoom / camera.getZoom();
+        int left = x + Math.round(cached.offsetX * scale);
+        int top = y + Math.round(cached.offsetY * scale);
+        Graphics2D sg = (Graphics2D) g.create();
+        sg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        sg.drawImage(cached.image, left, top,
+                Math.round(cached.image.getWidth() * scale),
+                Math.round(cached.image.getHeight() * scale), null);
+        sg.dispose();
+    }
+
+    /**
+     * Gets the zoom factor step that the images for a zoom factor are made
+     * at. The step is rounded down so the images are never stretched to be
+     * bigger than they were drawn.
+     * @param zoom the zoom factor of the camera.
+     * @return the step, where each step is a fixed part of a doubling of
+     * the zoom factor.
+     */
+    private static int getZoomStep(float zoom) {
+        return (int) Math.floor(Math.log(zoom) / Math.log(2) * ZOOM_STEPS_PER_DOUBLING);
+    }
+
+    /**
+     * Sets up the camera the images are drawn with for a zoom factor step,
+     * with the same levels of detail as the camera of the view.
+     * @param camera the camera of the view.
+     * @param zoomStep the zoom factor step the images are made at.
+     */
+    private void setUpImageCamera(Camera camera, int zoomStep) {
+        imageCamera.setReducedDetailZoom(camera.getReducedDetailZoom());
+        imageCamera.setMinimalDetailZoom(camera.getMinimalDetailZoom());
+        imageCamera.setZoom((float) Math.pow(2, (double) zoomStep / ZOOM_STEPS_PER_DOUBLING));
+    }
+
+    /**
+     * Draws a node into an image and keeps the image.
+     * @param node the node to draw.
+     * @param zoomStep the zoom factor step the image is made at, which the
+     * image camera is already set up for.
+     * @param bounds the area the node covers, in canvas coordinates of the
+     * image camera.
+     * @param backgroundColor the background color of the view.
+     * @param old the old image of the node, or <code>null</code> if it
+     * does not have one.
+     * @return the new image of the node.
+     */
+    private CachedImage render(Node node, int zoomStep, Rectangle bounds, Color backgroundColor, CachedImage old) {
+        BufferedImage image;
+        if (old != null && old.image.getWidth() == bounds.width && old.image.getHeight() == bounds.height) {
+            // reuse the old image since it is the right size
+            image = old.image;
+            Graphics2D clear = image.createGraphics();
+            clear.setComposite(AlphaComposite.Clear);
+            clear.fillRect(0, 0, bounds.width, bounds.height);
+            clear.dispose();
+        } else {
+            invalidate(node);
+            image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+            memoryUsed += 4L * bounds.width * bounds.height;
+        }
+        Graphics2D ig = image.createGraphics();
+        ig.translate(-bounds.x, -bounds.y);
+        node.getStyle().getShape().renderShape(node, imageCamera, ig, texts, false, 0, backgroundColor);
+        ig.dispose();
+
+        CachedImage cached = new CachedImage(node, zoomStep, imageCamera.getZoom(), backgroundColor, image,
+                bounds.x - imageCamera.convertWorldToCanvasX(node.getX()),
+                bounds.y - imageCamera.convertWorldToCanvasY(node.getY()));
+        images.put(node, cached);
+        trim();
+        return cached;
+    }
+
+    /**
+     * Throws away the images that were used the longest time ago until the
+     * images fit in the memory budget.
+     */
+    private void trim() {
+        Iterator<CachedImage> it = images.values().iterator();
+        while (memoryUsed > memoryBudget && it.hasNext()) {
+            CachedImage cached = it.next();
+            memoryUsed -= cached.bytes();
+            it.remove();
+        }
+    }
+
+    /**
+     * Throws away the image of a node.
+     * @param node the node whose image is thrown away.
+     */
+    public void invalidate(Node node) {
+        CachedImage cached = images.remove(node);
+        if (cached != null) {
+            memoryUsed -= cached.bytes();
+        }
+    }
+
+    /**
+     * Throws away all of the images.
+     */
+    public void clear() {
+        images.clear();
+        memoryUsed = 0;
+    }
+
+    /**
+     * Checks to see if nodes are drawn from their images.
+     * @return <code>true</code> if nodes are drawn from their images.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether or not nodes are drawn from their images. Turning this
+     * off throws away all of the images.
+     * @param enabled whether or not nodes are drawn from their images.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Gets the number of bytes that the images can take up.
+     * @return the memory budget in bytes.
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the number of bytes that the images can take up.
+     * @param memoryBudget the memory budget in bytes.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        trim();
+    }
+
+    /**
+     * An image of a node, along with everything that changes how the node
+     * looks at the time the image was made.
+     */
+    private static class CachedImage {
+
+        private final BufferedImage image;
+        private final int offsetX;
+        private final int offsetY;
+        private final int zoomStep;
+        private final float zoom;
+        private final Color backgroundColor;
+        private final Shape shape;
+        private final Color fillColor;
+        private final Color borderColor;
+        private final int borderSize;
+        private final Font fontType;
+        private final int fontSize;
+        private final Color fontColor;
+        private final String innerText;
+        private final float width;
+        private final float height;
+
+        private CachedImage(Node node, int zoomStep, float zoom, Color backgroundColor, BufferedImage image, int offsetX, int offsetY) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.zoomStep = zoomStep;
+            this.zoom = zoom;
+            this.backgroundColor = backgroundColor;
+            NodeStyle style = node.getStyle();
+            shape = style.getShape();
+            fillColor = style.getFillColor();
+            borderColor = style.getBorderColor();
+            borderSize = style.getBorderSize();
+            fontType = style.getFontType();
+            fontSize = style.getFontSize();
+            fontColor = style.getFontColor();
+            innerText = node.getInnerText();
+            width = node.getWidth();
+            height = node.getHeight();
+        }
+
+        /**
+         * Checks to see if this image still shows the node as it looks now.
+         */
+        private boolean isFor(Node node, int zoomStep, Color backgroundColor) {
+            NodeStyle style = node.getStyle();
+            return this.zoomStep == zoomStep
+                    && width == node.getWidth()
+                    && height == node.getHeight()
+                    && shape == style.getShape()
+                    && borderSize == style.getBorderSize()
+                    && fontSize == style.getFontSize()
+                    && innerText.equals(node.getInnerText())
+                    && fillColor.equals(style.getFillColor())
+                    && borderColor.equals(style.getBorderColor())
+                    && fontColor.equals(style.getFontColor())
+                    && fontType.equals(style.getFontType())
+                    && this.backgroundColor.equals(backgroundColor);
+        }
+
+        private long bytes() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ * 
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+import bropals.processsketcher.Camera;
+import bropals.processsketcher.data.Node;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+
+/**
+ * The outline of a node in the world, made by scaling the outline of its
+ * shape to fit over the node. It is used to find out if a point is inside
+ * of the node, and to draw the shapes that are made of straight lines
+ * without working out their corners again every time they are drawn.
+ * @author Jonathon
+ */
+public class NodeOutline {
+
+    /**
+     * The outline in world coordinates.
+     */
+    private final Path2D.Float path;
+    /**
+     * The corners of the outline in world coordinates, or <code>null</code>
+     * if the outline has curves in it.
+     */
+    private final float[] cornersX, cornersY;
+    /**
+     * The corners of the outline in canvas coordinates, as of the last time
+     * they were converted.
+     */
+    private final int[] canvasX, canvasY;
+
+    /**
+     * Makes the outline of a node.
+     * @param node the node.
+     */
+    public NodeOutline(Node node) {
+        AffineTransform toWorld = new AffineTransform(node.getWidth(), 0, 0,
+                node.getHeight(), node.getX(), node.getY());
+        path = new Path2D.Float(node.getStyle().getShape().getTemplate(), toWorld);
+
+        // find the corners if the outline is only made of straight lines
+        float[] xs = new float[8];
+        float[] ys = new float[8];
+        int count = 0;
+        boolean straight = true;
+        float[] coords = new float[6];
+        for (PathIterator it = path.getPathIterator(null); !it.isDone() && straight; it.next()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_LINETO:
+                    if (count == xs.length) {
+                        straight = false;
+                    } else {
+                        xs[count] = coords[0];
+                        ys[count] = coords[1];
+                        count++;
+                    }
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    break;
+                default:
+                    straight = false;
+                    break;
+            }
+        }
+        if (straight) {
+            cornersX = new float[count];
+            cornersY = new float[count];
+            System.arraycopy(xs, 0, cornersX, 0, count);
+            System.arraycopy(ys, 0, cornersY, 0, count);
+            canvasX = new int[count];
+            canvasY = new int[count];
+        } else {
+            cornersX = null;
+            cornersY = null;
+            canvasX = null;
+            canvasY = null;
+        }
+    }
+
+    /**
+     * Checks to see if a point is inside of the outline.
+     * @param x the X position of the point, in world coordinates.
+     * @param y the Y position of the point, in world coordinates.
+     * @return <code>true</code> if the point is inside of the outline.
+     */
+    public boolean contains(float x, float y) {
+        return path.contains(x, y);
+    }
+
+    /**
+     * Gets the outline in world coordinates.
+     * @return the outline. It should not be changed.
+     */
+    public Path2D.Float getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of corners of the outline.
+     * @return the number of corners, or <code>0</code> if the outline has
+     * curves in it.
+     */
+    public int getCornerCount() {
+        return cornersX == null ? 0 : cornersX.length;
+    }
+
+    /**
+     * Converts the corners of the outline to canvas coordinates, which can
+     * then be gotten from {@link #getCanvasX()} and {@link #getCanvasY()}.
+     * Nothing happens if the outline has curves in it.
+     * @param camera the camera for the view.
+     */
+    public void convertToCanvas(Camera camera) {
+        if (cornersX == null) {
+            return;
+        }
+        for (int i = 0; i < cornersX.length; i++) {
+            canvasX[i] = camera.convertWorldToCanvasX(cornersX[i]);
+            canvasY[i] = camera.convertWorldToCanvasY(cornersY[i]);
+        }
+    }
+
+    /**
+     * Gets the X positions of the corners, as of the last time they were
+     * converted to canvas coordinates.
+     * @return the X positions in canvas coordinates. They should not be
+     * changed.
+     */
+    public int[] getCanvasX() {
+        return canvasX;
+    }
+
+    /**
+     * Gets the Y positions of the corners, as of the last time they were
+     * converted to canvas coordinates.
+     * @return the Y positions in canvas coordinates. They should not be
+     * changed.
+     */
+    public int[] getCanvasY() {
+        return canvasY;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares the fonts and strokes used for drawing so that they are not made
+ * again for every node and line every time the view is painted.
+ * @author Jonathon
+ */
+public class RenderCache {
+
+    /**
+     * The most fonts or strokes that are kept at once.
+     */
+    private static final int MAX_ENTRIES = 256;
+    /**
+     * Font sizes are rounded to this many steps per point.
+     */
+    private static final float SIZE_STEPS = 100;
+    /**
+     * The length of the dashes and the gaps of a dashed line.
+     */
+    private static final float[] DASH = new float[]{10};
+
+    /**
+     * The stroke that is put back after drawing something thicker.
+     */
+    public static final BasicStroke DEFAULT_STROKE = new BasicStroke(1);
+
+    private static final Map<FontKey, Font> fonts = new BoundedMap<>();
+    /**
+     * The last font asked for, since most of a paint uses the same one.
+     */
+    private static Font lastFont, lastDerived;
+    private static int lastSteps;
+    private static final Map<Integer, BasicStroke> solidStrokes = new BoundedMap<>();
+    private static final Map<Integer, BasicStroke> dashedStrokes = new BoundedMap<>();
+    private static final Map<Integer, BasicStroke> dottedStrokes = new BoundedMap<>();
+
+    /**
+     * Gets a font derived from another font at a different size.
+     * @param font the font to derive from.
+     * @param size the size of the derived font, which is rounded slightly
+     * so that sizes which are almost the same share a font.
+     * @return the derived font.
+     */
+    public static Font getFont(Font font, float size) {
+        int steps = Math.round(size * SIZE_STEPS);
+        if (font == lastFont && steps == lastSteps) {
+            return lastDerived;
+        }
+        FontKey key = new FontKey(font, steps);
+        Font derived = fonts.get(key);
+        if (derived == null) {
+            derived = font.deriveFont(steps / SIZE_STEPS);
+            fonts.put(key, derived);
+        }
+        lastFont = font;
+        lastSteps = steps;
+        lastDerived = derived;
+        return derived;
+    }
+
+    /**
+     * Gets a solid stroke.
+     * @param width the width of the stroke.
+     * @return the stroke.
+     */
+    public static BasicStroke getStroke(int width) {
+        BasicStroke stroke = solidStrokes.get(width);
+        if (stroke == null) {
+            stroke = new BasicStroke(width);
+            solidStrokes.put(width, stroke);
+        }
+        return stroke;
+    }
+
+    /**
+     * Gets a dashed stroke.
+     * @param width the width of the stroke.
+     * @return the stroke.
+     */
+    public static BasicStroke getDashedStroke(int width) {
+        BasicStroke stroke = dashedStrokes.get(width);
+        if (stroke == null) {
+            stroke = new BasicStroke(width, BasicStroke.CAP_BUTT,
+                    BasicStroke.JOIN_BEVEL, 1f, DASH, 0f);
+            dashedStrokes.put(width, stroke);
+        }
+        return stroke;
+    }
+
+    /**
+     * Gets a dotted stroke, with round dots that are twice as wide as the
+     * line size and spaced four line sizes apart.
+     * @param width the width of the line the dots are on.
+     * @return the stroke.
+     */
+    public static BasicStroke getDottedStroke(int width) {
+        BasicStroke stroke = dottedStrokes.get(width);
+        if (stroke == null) {
+            stroke = new BasicStroke(width * 2, BasicStroke.CAP_ROUND,
+                    BasicStroke.JOIN_ROUND, 1f, new float[]{0, Math.max(width, 1) * 4}, 0f);
+            dottedStrokes.put(width, stroke);
+        }
+        return stroke;
+    }
+
+    /**
+     * A font and a rounded size.
+     */
+    private static class FontKey {
+
+        private final Font font;
+        private final int steps;
+
+        private FontKey(Font font, int steps) {
+            this.font = font;
+            this.steps = steps;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FontKey)) {
+                return false;
+            }
+            FontKey key = (FontKey) other;
+            return steps == key.steps && font.equals(key.font);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * font.hashCode()) + steps;
+        }
+    }
+
+    /**
+     * A map that forgets the entry that was used the longest time ago once
+     * it has too many entries.
+     * @param <K> the type of the keys.
+     * @param <V> the type of the values.
+     */
+    private static class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private BoundedMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+}
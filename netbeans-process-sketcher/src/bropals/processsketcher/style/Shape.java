@@ -22,15 +22,15 @@ package bropals.processsketcher.style;
 import bropals.processsketcher.Camera;
 import bropals.processsketcher.EventManager;
 import bropals.processsketcher.data.Node;
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Point;
-import java.awt.Polygon;
-import java.util.ArrayList;
+import java.awt.Rectangle;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 
 /**
  * Represents the shape of a node, which also indicates its meaning
@@ -195,300 +195,455 @@ public enum Shape {
     }
     
     /**
-     * Creates a polygon in canvas coordinates from a set of points in world
-     * coordinates.
-     * @param points a set of points in world coordinates to construct
-     * the polygon out of.
-     * @param c the camera for the view.
-     * @return a polygon in canvas coordinates, constructed from the given 
-     * set of world coordinate points.
+     * Gets the outline of this shape in a 1 by 1 box, with its top left
+     * corner at (0, 0). A shape with nothing to draw is a plain box.
+     * @return the outline of this shape. It should not be changed.
+     */
+    Path2D.Float getTemplate() {
+        return Templates.BY_ORDINAL[ordinal()];
+    }
+
+    /**
+     * Makes the outline of a shape in a 1 by 1 box. The corners go in
+     * the same order that the shape has always been drawn in.
+     * @param shape the shape to make the outline of.
+     * @return the outline of the shape.
      */
-    private Polygon canvasPolyFromWorldCoordinates(Point.Float[] points, Camera c) {
-        int x[] = new int[points.length];
-        int y[] = new int[points.length];
-        for (int i=0; i<points.length; i++) {
-            x[i] = c.convertWorldToCanvasX(points[i].x);
-            y[i] = c.convertWorldToCanvasY(points[i].y);
+    private static Path2D.Float createTemplate(Shape shape) {
+        Path2D.Float path = new Path2D.Float();
+        switch (shape) {
+            case DECISION:
+                path.moveTo(0.5f, 0);
+                path.lineTo(1, 0.5f);
+                path.lineTo(0.5f, 1);
+                path.lineTo(0, 0.5f);
+                path.closePath();
+                break;
+            case START_END:
+                path.append(new Ellipse2D.Float(0, 0, 1, 1), false);
+                break;
+            case MERGE:
+                path.moveTo(0.5f, 1);
+                path.lineTo(0, 0);
+                path.lineTo(1, 0);
+                path.closePath();
+                break;
+            case DELAY:
+                path.moveTo(0, 0);
+                path.lineTo(2f / 3, 0);
+                // the right third is half of an ellipse
+                path.append(new Arc2D.Float(1f / 3, 0, 2f / 3, 1, 90, -180, Arc2D.OPEN), true);
+                path.lineTo(0, 1);
+                path.closePath();
+                break;
+            case INPUT_OUTPUT:
+                path.moveTo(0.25f, 0);
+                path.lineTo(1, 0);
+                path.lineTo(0.75f, 1);
+                path.lineTo(0, 1);
+                path.closePath();
+                break;
+            case DOCUMENT:
+                path.moveTo(0, 0);
+                path.lineTo(1, 0);
+                path.lineTo(1, 7f / 8);
+                // the bottom edge is a wave, up on the right and down on the left
+                path.append(new Arc2D.Float(0.5f, 0.75f, 0.5f, 0.25f, 0, 180, Arc2D.OPEN), true);
+                path.append(new Arc2D.Float(0, 0.75f, 0.5f, 0.25f, 0, -180, Arc2D.OPEN), true);
+                path.closePath();
+                break;
+            default:
+                path.moveTo(0, 0);
+                path.lineTo(1, 0);
+                path.lineTo(1, 1);
+                path.lineTo(0, 1);
+                path.closePath();
+                break;
         }
-        return new Polygon(x, y, points.length);
+        return path;
     }
     
     /**
-     * Constructs and draws a canvas coordinate polygon from a set of
-     * world coordinate points.
-     * @param g the graphics context to draw the polygon.
-     * @param node the node that the polygon represents.
-     * @param points the set of points to construct the polygon from.
+     * Draws a node whose outline is only made of straight lines, using the
+     * corners of its outline.
+     * @param g the graphics context to draw the outline.
+     * @param node the node being drawn.
      * @param c the camera for the view.
      */
-    private void drawPolygonFromPoints(Graphics2D g, Node node, Point.Float[] points, Camera c) {
-        Polygon shape = canvasPolyFromWorldCoordinates(points, c);
+    private void drawPolygonOutline(Graphics2D g, Node node, Camera c) {
+        NodeOutline outline = node.getOutline();
+        outline.convertToCanvas(c);
+        int corners = outline.getCornerCount();
 
         g.setColor(node.getStyle().getFillColor());
-        g.fillPolygon(shape);
+        g.fillPolygon(outline.getCanvasX(), outline.getCanvasY(), corners);
 
-        g.setStroke(new BasicStroke(node.getStyle().getBorderSize()));
+        g.setStroke(RenderCache.getStroke(node.getStyle().getBorderSize()));
         g.setColor(node.getStyle().getBorderColor());
-        g.drawPolygon(shape);
-        g.setStroke(new BasicStroke(1));
+        g.drawPolygon(outline.getCanvasX(), outline.getCanvasY(), corners);
+        g.setStroke(RenderCache.DEFAULT_STROKE);
     }
     
     /**
-     * Render a node according to what the style is.
-     *
-     * @param node The node that is being rendered
-     * @param camera The camera used to transform it
-     * @param g The graphics that it will be drawn to
-     * @param blinkCursor Whether or not the cursor will be showing for editing
-     * text
-     * @param backgroundColor the background color of the view to draw this shape in.
-     * @param cursorLocation The location of the cursor for editing text
+     * Finds where the text inside of a node starts and how wide each row
+     * of text can be, which depends on the shape of the node.
+     * @param node the node to find the text area of.
+     * @param camera the camera for the view.
+     * @param fm the metrics of the font the text is drawn in.
+     * @return the X position and the Y position of the first row's
+     * baseline, and the width each row can't get longer than, all in
+     * canvas units.
      */
-    public void renderShape(Node node, Camera camera, Graphics g, boolean blinkCursor, int cursorLocation, Color backgroundColor) {
-        // don't draw anything if the shape is nothing
-        if (node.getStyle().getShape() == Shape.NONE) {
-            return;
-        }
-        
-        Graphics2D g2 = (Graphics2D) g;
-
-        Font transformedFont = node.getStyle().getFontType().deriveFont(node.getStyle().getFontSize() / camera.getZoom());
-        g2.setFont(transformedFont);   
-        FontMetrics fm = g2.getFontMetrics();
-        
+    private int[] getTextArea(Node node, Camera camera, FontMetrics fm) {
         //Text wrapping values. Don't edit them to use these default values
         int padding = 5;
         int startEverythingX = camera.convertWorldToCanvasX(node.getX() + padding ); // canvas units
         int startEverythingY = camera.convertWorldToCanvasY(node.getY() + padding) + fm.getHeight(); // canvas units
         // the width each row can't get longer than (in canvas units)
         int width =  camera.convertWorldToCanvasLength(node.getWidth() - (padding * 2));
-        
-        if (cursorLocation > node.getInnerText().length()) {
-            cursorLocation = node.getInnerText().length();
-        } else if (cursorLocation < 0) {
-            cursorLocation = 0;
-        }
-        Point.Float p1, p2, p3, p4;
-        Point ip1, ip2, ip3, ip4;
         switch (this) {
-            case ACTION:
-                p1 = new Point.Float(node.getX(), node.getY());
-                p3 = new Point.Float(node.getX() + node.getWidth(), node.getY() + node.getHeight());
-
-                // use canvas units to draw the node
-                ip1 = camera.convertWorldToCanvas(p1);
-                ip3 = camera.convertWorldToCanvas(p3);
-
-                g.setColor(node.getStyle().getFillColor());
-                g.fillRect(ip1.x, ip1.y, ip3.x-ip1.x, ip3.y-ip1.y);
-                
-                g2.setStroke(new BasicStroke(node.getStyle().getBorderSize()));
-                g.setColor(node.getStyle().getBorderColor());
-                g.drawRect(ip1.x, ip1.y, ip3.x-ip1.x, ip3.y-ip1.y);
-
-                g2.setStroke(new BasicStroke(1));
-                
-                break;
             case DECISION:
-                p1 = new Point.Float(node.getX() + (node.getWidth()/2), node.getY());
-                p2 = new Point.Float(node.getX() + node.getWidth(), node.getY() + (node.getHeight()/2));
-                p3 = new Point.Float(node.getX() + (node.getWidth()/2), node.getY() + node.getHeight());
-                p4 = new Point.Float(node.getX(), node.getY() + (node.getHeight()/2));
-                
-                drawPolygonFromPoints(g2, node, new Point.Float[] { p1, p2, p3, p4 }, camera);
-                
                 startEverythingX += camera.convertWorldToCanvasLength(node.getWidth()/4);
                 startEverythingY += camera.convertWorldToCanvasLength(node.getHeight()/4);
                 width -= camera.convertWorldToCanvasLength(node.getWidth()/2);
                 break;
             case START_END:
-                p1 = new Point.Float(node.getX(), node.getY());
-                p3 = new Point.Float(node.getX() + node.getWidth(), node.getY() + node.getHeight());
-
-                // use canvas units to draw the node
-                ip1 = camera.convertWorldToCanvas(p1);
-                ip3 = camera.convertWorldToCanvas(p3);
-                
-                g.setColor(node.getStyle().getFillColor());
-                g.fillOval(ip1.x, ip1.y, ip3.x-ip1.x, ip3.y-ip1.y);
-                
-                g2.setStroke(new BasicStroke(node.getStyle().getBorderSize()));
-                g.setColor(node.getStyle().getBorderColor());
-                g.drawOval(ip1.x, ip1.y, ip3.x-ip1.x, ip3.y-ip1.y);
-
-                g2.setStroke(new BasicStroke(1));
-                
                 float constant = (float)(1-(Math.sqrt(2)/2))/2;
                 startEverythingX += camera.convertWorldToCanvasLength(node.getWidth()*constant);
                 startEverythingY += camera.convertWorldToCanvasLength(node.getHeight()*constant);
                 width -= camera.convertWorldToCanvasLength(node.getWidth()*constant*2);
                 break;
             case MERGE:
-                p1 = new Point.Float(node.getX() + (node.getWidth()/2), node.getY() + node.getHeight() );
-                p2 = new Point.Float(node.getX(), node.getY() );
-                p3 = new Point.Float(node.getX() + node.getWidth(), node.getY());
-                                
-                drawPolygonFromPoints(g2, node, new Point.Float[]{p1, p2, p3}, camera);
-                
                 startEverythingX += camera.convertWorldToCanvasLength(node.getWidth()/4);
                 width -= camera.convertWorldToCanvasLength(node.getWidth()/2);
                 break;
             case DELAY:
-                p1 = new Point.Float(node.getX(), node.getY());
-                p2 = new Point.Float(node.getX() + (int)((float)node.getWidth()*2/3), node.getY());
-                p3 = new Point.Float(node.getX(), node.getY() + node.getHeight());
-                p4 = new Point.Float(node.getX() + (int)((float)node.getWidth()*2/3), node.getY() + node.getHeight());
-                Point.Float p5 = new Point.Float(node.getX() + node.getWidth(), node.getY() + node.getHeight());
-                
-                ip1 = camera.convertWorldToCanvas(p1);
-                ip2 = camera.convertWorldToCanvas(p2);
-                ip3 = camera.convertWorldToCanvas(p3);
-                ip4 = camera.convertWorldToCanvas(p4);
-                Point ip5 = camera.convertWorldToCanvas(p5);
-                
+                int third = camera.convertWorldToCanvasX(node.getX() + node.getWidth()) - 
+                        camera.convertWorldToCanvasX(node.getX() + (int)((float)node.getWidth()*2/3));
+                width -= third;
+                break;
+            case INPUT_OUTPUT:
+                startEverythingX += camera.convertWorldToCanvasLength(node.getWidth()/4);
+                width -= (node.getWidth()/2);
+                break;
+        }
+        return new int[] { startEverythingX, startEverythingY, width };
+    }
+    
+    /**
+     * Gets the area that a node covers when it is drawn without a text
+     * cursor, including its border and any text that does not fit inside
+     * of it.
+     * @param node the node to measure.
+     * @param camera the camera for the view.
+     * @param g the graphics context that the node would be drawn with.
+     * @param texts the layouts of the text in the view.
+     * @return the area in canvas coordinates.
+     */
+    public Rectangle getCanvasBounds(Node node, Camera camera, Graphics g, TextLayoutCache texts) {
+        int x = camera.convertWorldToCanvasX(node.getX());
+        int y = camera.convertWorldToCanvasY(node.getY());
+        Rectangle bounds = new Rectangle(x, y,
+                camera.convertWorldToCanvasX(node.getX() + node.getWidth()) - x,
+                camera.convertWorldToCanvasY(node.getY() + node.getHeight()) - y);
+        // half of the border is drawn outside of the shape
+        int border = (node.getStyle().getBorderSize() / 2) + 1;
+        bounds.grow(border, border);
+        if (node.getInnerText().length() > 0 && camera.getDetailLevel().showsText()) {
+            g.setFont(RenderCache.getFont(node.getStyle().getFontType(), node.getStyle().getFontSize() / camera.getZoom()));
+            FontMetrics fm = g.getFontMetrics();
+            int[] textArea = getTextArea(node, camera, fm);
+            LabelLayout text = texts.getLayout(node, 0, node.getInnerText(), g, textArea[2]);
+            bounds.add(new Rectangle(textArea[0], textArea[1] - text.getLineHeight(),
+                    text.getWidestRow(), (text.getRowCount() * text.getLineHeight()) + text.getDescent()));
+        }
+        return bounds;
+    }
+    
+    /**
+     * Draws the fill and the border of a node.
+     * @param node the node being drawn.
+     * @param camera the camera for the view.
+     * @param g the graphics context to draw with.
+     * @param backgroundColor the background color of the view to draw this shape in.
+     */
+    private void renderOutline(Node node, Camera camera, Graphics g, Color backgroundColor) {
+        Graphics2D g2 = (Graphics2D) g;
+        // the corners of the node in canvas units
+        int left = camera.convertWorldToCanvasX(node.getX());
+        int top = camera.convertWorldToCanvasY(node.getY());
+        int right, bottom;
+        switch (this) {
+            case ACTION:
+                right = camera.convertWorldToCanvasX(node.getX() + node.getWidth());
+                bottom = camera.convertWorldToCanvasY(node.getY() + node.getHeight());
+
                 g.setColor(node.getStyle().getFillColor());
-                g.fillRect(ip1.x, ip1.y, ip4.x-ip1.x, ip4.y-ip1.y);
-                int third = (ip5.x-ip2.x);
-                g2.fillArc(ip2.x-third, ip2.y, third*2, ip5.y-ip2.y, 90, -180);
+                g.fillRect(left, top, right-left, bottom-top);
                 
+                g2.setStroke(RenderCache.getStroke(node.getStyle().getBorderSize()));
                 g.setColor(node.getStyle().getBorderColor());
-                g2.setStroke(new BasicStroke(node.getStyle().getBorderSize()));
-                g.drawLine(ip1.x, ip1.y, ip2.x, ip2.y);
-                g.drawLine(ip1.x, ip1.y, ip3.x, ip3.y);
-                g.drawLine(ip3.x, ip3.y, ip4.x, ip4.y);
-                g2.drawArc(ip2.x-third, ip2.y, third*2, ip5.y-ip2.y, 90, -180);
-                
-                g2.setStroke(new BasicStroke(1));
+                g.drawRect(left, top, right-left, bottom-top);
+
+                g2.setStroke(RenderCache.DEFAULT_STROKE);
                 
-                width -= third;
                 break;
+            case DECISION:
+            case MERGE:
             case INPUT_OUTPUT:
-                p1 = new Point.Float(node.getX() + (int)((float)node.getWidth()/4), node.getY());
-                p2 = new Point.Float(node.getX() + node.getWidth(), node.getY());
-                p3 = new Point.Float(node.getX() + (int)((float)node.getWidth()*3/4), node.getY() + node.getHeight());
-                p4 = new Point.Float(node.getX(), node.getY() + node.getHeight());
+                drawPolygonOutline(g2, node, camera);
+
+                break;
+            case START_END:
+                right = camera.convertWorldToCanvasX(node.getX() + node.getWidth());
+                bottom = camera.convertWorldToCanvasY(node.getY() + node.getHeight());
                 
-                drawPolygonFromPoints(g2, node, new Point.Float[]{p1, p2, p3, p4}, camera);           
+                g.setColor(node.getStyle().getFillColor());
+                g.fillOval(left, top, right-left, bottom-top);
                 
-                startEverythingX += camera.convertWorldToCanvasLength(node.getWidth()/4);
-                width -= (node.getWidth()/2);
+                g2.setStroke(RenderCache.getStroke(node.getStyle().getBorderSize()));
+                g.setColor(node.getStyle().getBorderColor());
+                g.drawOval(left, top, right-left, bottom-top);
+
+                g2.setStroke(RenderCache.DEFAULT_STROKE);
+
                 break;
-            case DOCUMENT:
-                p1 = new Point.Float(node.getX(), node.getY());
-                p2 = new Point.Float(node.getX() + node.getWidth(), node.getY());
-                p3 = new Point.Float(node.getX(), node.getY() + (int)( (float)node.getHeight()*7/8));
-                p4 = new Point.Float(node.getX() + (node.getWidth()/2), node.getY() + node.getHeight());
+            case DELAY:
+                // where the straight part ends and the rounded part starts
+                int flatRight = camera.convertWorldToCanvasX(node.getX() + (int)((float)node.getWidth()*2/3));
+                right = camera.convertWorldToCanvasX(node.getX() + node.getWidth());
+                bottom = camera.convertWorldToCanvasY(node.getY() + node.getHeight());
                 
-                ip1 = camera.convertWorldToCanvas(p1);
-                ip2 = camera.convertWorldToCanvas(p2);
-                ip3 = camera.convertWorldToCanvas(p3);
-                ip4 = camera.convertWorldToCanvas(p4);
+                g.setColor(node.getStyle().getFillColor());
+                g.fillRect(left, top, flatRight-left, bottom-top);
+                int third = (right-flatRight);
+                g2.fillArc(flatRight-third, top, third*2, bottom-top, 90, -180);
+                
+                g.setColor(node.getStyle().getBorderColor());
+                g2.setStroke(RenderCache.getStroke(node.getStyle().getBorderSize()));
+                g.drawLine(left, top, flatRight, top);
+                g.drawLine(left, top, left, bottom);
+                g.drawLine(left, bottom, flatRight, bottom);
+                g2.drawArc(flatRight-third, top, third*2, bottom-top, 90, -180);
+                
+                g2.setStroke(RenderCache.DEFAULT_STROKE);
+
+                break;
+            case DOCUMENT:
+                right = camera.convertWorldToCanvasX(node.getX() + node.getWidth());
+                // where the wave at the bottom is centered
+                int waveY = camera.convertWorldToCanvasY(node.getY() + (int)( (float)node.getHeight()*7/8));
+                int middle = camera.convertWorldToCanvasX(node.getX() + (node.getWidth()/2));
+                bottom = camera.convertWorldToCanvasY(node.getY() + node.getHeight());
                 
                 g.setColor(node.getStyle().getFillColor());
-                g.fillRect(ip1.x, ip1.y, ip2.x-ip1.x, ip3.y-ip1.y);
-                int eighthHeight = ip4.y-ip3.y;
-                int halfWidth = ip4.x-ip1.x;
-                g.fillArc(ip3.x, ip3.y-eighthHeight, halfWidth, eighthHeight*2, 180, 180);
+                g.fillRect(left, top, right-left, waveY-top);
+                int eighthHeight = bottom-waveY;
+                int halfWidth = middle-left;
+                g.fillArc(left, waveY-eighthHeight, halfWidth, eighthHeight*2, 180, 180);
                 g.setColor(backgroundColor);
-                g.fillArc(ip4.x, ip3.y - eighthHeight, halfWidth, eighthHeight*2, 0, 180);
+                g.fillArc(middle, waveY - eighthHeight, halfWidth, eighthHeight*2, 0, 180);
                 
                 g.setColor(node.getStyle().getBorderColor());
-                g2.setStroke(new BasicStroke(node.getStyle().getBorderSize()));
-                g.drawLine(ip1.x, ip1.y, ip2.x, ip2.y);
-                g.drawLine(ip2.x, ip2.y, ip2.x, ip3.y);
-                g.drawLine(ip1.x, ip1.y, ip3.x, ip3.y);
-                g.drawArc(ip3.x, ip3.y-eighthHeight, halfWidth, eighthHeight*2, 180, 180);
-                g.drawArc(ip4.x, ip3.y - eighthHeight, halfWidth, eighthHeight*2, 0, 180);
-                g2.setStroke(new BasicStroke(1));
+                g2.setStroke(RenderCache.getStroke(node.getStyle().getBorderSize()));
+                g.drawLine(left, top, right, top);
+                g.drawLine(right, top, right, waveY);
+                g.drawLine(left, top, left, waveY);
+                g.drawArc(left, waveY-eighthHeight, halfWidth, eighthHeight*2, 180, 180);
+                g.drawArc(middle, waveY - eighthHeight, halfWidth, eighthHeight*2, 0, 180);
+                g2.setStroke(RenderCache.DEFAULT_STROKE);
                 break;
         }
+    }
+    
+    /**
+     * Render a node according to what the style is.
+     *
+     * @param node The node that is being rendered
+     * @param camera The camera used to transform it
+     * @param g The graphics that it will be drawn to
+     * @param texts The layouts of the text in the view
+     * @param blinkCursor Whether or not the cursor will be showing for editing
+     * text
+     * @param backgroundColor the background color of the view to draw this shape in.
+     * @param cursorLocation The location of the cursor for editing text
+     */
+    public void renderShape(Node node, Camera camera, Graphics g, TextLayoutCache texts, boolean blinkCursor, int cursorLocation, Color backgroundColor) {
+        // don't draw anything if the shape is nothing
+        if (node.getStyle().getShape() == Shape.NONE) {
+            return;
+        }
+        DetailLevel detail = camera.getDetailLevel();
+        if (detail == DetailLevel.MINIMAL) {
+            renderBox(node, camera, g);
+            return;
+        }
+        if (!detail.showsText()) {
+            renderOutline(node, camera, g, backgroundColor);
+            return;
+        }
+        
+        Graphics2D g2 = (Graphics2D) g;
 
-        String[] words = node.getInnerText().split(" ");
+        Font transformedFont = RenderCache.getFont(node.getStyle().getFontType(), node.getStyle().getFontSize() / camera.getZoom());
+        g2.setFont(transformedFont);   
+        FontMetrics fm = g2.getFontMetrics();
+        
+        int[] textArea = getTextArea(node, camera, fm);
+        int startEverythingX = textArea[0]; // canvas units
+        int startEverythingY = textArea[1]; // canvas units
+        // the width each row can't get longer than (in canvas units)
+        int width = textArea[2];
+        
+        renderOutline(node, camera, g, backgroundColor);
+
+        // the text separated into rows that fit inside of the node
+        LabelLayout text = texts.getLayout(node, 0, node.getInnerText(), g, width);
 
         // only draw text if there is text
-        if (node.getInnerText().length() > 0 && words.length > 0) {
+        if (node.getInnerText().length() > 0 && text.getRowCount() > 0) {
             g2.setColor(node.getStyle().getFontColor());
-            
-            // seperate the text into rows according to their lengths, not extending canvas units
-            // the array for the text. Every element of the array represents one row of text
-            ArrayList<String> text = new ArrayList<>();
-            text.add(words[0]); // first word goes into the first row
+            text.draw(g2, startEverythingX, startEverythingY);
+        }
 
-            // what row is currently being filled
-            int rowOn = 0;
-            for (int i = 1; i < words.length; i++) {
-                String testResultRow = text.get(rowOn) + " " + words[i]; // add a space after each word
-                // if the word is NOT a new line character and the new word will fit
+        if (blinkCursor) {
+            renderTypeCursor(node, camera, g, texts, cursorLocation);
+        }
+    }
 
-                if (g.getFontMetrics().getStringBounds(testResultRow, g).getWidth() < width) {
-                    // remove the old row
-                    text.remove(rowOn);
-                    // make this the new row
-                    text.add(rowOn, testResultRow);
-                    // otherwise if there isn't enough space on this new row
-                } else {
-                    // add the word to the next row
-                    
-                    // add a space to the end of the current row
-                    String endOfRowString = text.get(rowOn) + " ";
-                    text.remove(rowOn);
-                    text.add(rowOn, endOfRowString);
-                    
-                    // create a new row
-                    text.add(words[i]);
-                    rowOn++;
-                }
-            }
+    /**
+     * Draws a node as a plain box, for when the camera is zoomed out too far
+     * to see what shape it is.
+     * @param node the node being drawn.
+     * @param camera the camera for the view.
+     * @param g the graphics context to draw with.
+     */
+    private void renderBox(Node node, Camera camera, Graphics g) {
+        int x = camera.convertWorldToCanvasX(node.getX());
+        int y = camera.convertWorldToCanvasY(node.getY());
+        int width = camera.convertWorldToCanvasX(node.getX() + node.getWidth()) - x;
+        int height = camera.convertWorldToCanvasY(node.getY() + node.getHeight()) - y;
+        g.setColor(node.getStyle().getFillColor());
+        g.fillRect(x, y, width, height);
+        g.setColor(node.getStyle().getBorderColor());
+        ((Graphics2D) g).setStroke(RenderCache.DEFAULT_STROKE);
+        g.drawRect(x, y, width, height);
+    }
+
+    /**
+     * Draws the text cursor of a node that is being typed in, without
+     * drawing the node itself.
+     * @param node the node being typed in.
+     * @param camera the camera for the view.
+     * @param g the graphics context to draw with.
+     * @param texts the layouts of the text in the view.
+     * @param cursorLocation the location of the cursor in the node's text.
+     */
+    public void renderTypeCursor(Node node, Camera camera, Graphics g, TextLayoutCache texts, int cursorLocation) {
+        Rectangle cursor = new Rectangle();
+        Color color = findTypeCursor(node, camera, g, texts, cursorLocation, cursor);
+        if (color != null) {
+            g.setColor(color);
+            g.fillRect(cursor.x, cursor.y, cursor.width, cursor.height);
+        }
+    }
+
+    /**
+     * Gets the area of the canvas that the text cursor of a node covers.
+     * @param node the node being typed in.
+     * @param camera the camera for the view.
+     * @param g a graphics context to measure the text with.
+     * @param texts the layouts of the text in the view.
+     * @param cursorLocation the location of the cursor in the node's text.
+     * @return the area of the cursor in canvas coordinates, or
+     * <code>null</code> if no cursor is drawn for the node.
+     */
+    public Rectangle getTypeCursorBounds(Node node, Camera camera, Graphics g, TextLayoutCache texts, int cursorLocation) {
+        Rectangle cursor = new Rectangle();
+        return findTypeCursor(node, camera, g, texts, cursorLocation, cursor) == null ? null : cursor;
+    }
 
-            
-            int lineHeight = g.getFontMetrics().getHeight();
+    /**
+     * Finds where the text cursor of a node is drawn.
+     * @param node the node being typed in.
+     * @param camera the camera for the view.
+     * @param g a graphics context to measure the text with.
+     * @param texts the layouts of the text in the view.
+     * @param cursorLocation the location of the cursor in the node's text.
+     * @param cursor set to the area of the cursor in canvas coordinates.
+     * @return the color the cursor is drawn in, or <code>null</code> if no
+     * cursor is drawn for the node.
+     */
+    private Color findTypeCursor(Node node, Camera camera, Graphics g, TextLayoutCache texts, int cursorLocation, Rectangle cursor) {
+        // don't draw anything if the shape is nothing or the text isn't shown
+        if (node.getStyle().getShape() == Shape.NONE || !camera.getDetailLevel().showsText()) {
+            return null;
+        }
+        g.setFont(RenderCache.getFont(node.getStyle().getFontType(), node.getStyle().getFontSize() / camera.getZoom()));
+        FontMetrics fm = g.getFontMetrics();
+
+        int[] textArea = getTextArea(node, camera, fm);
+        int startEverythingX = textArea[0]; // canvas units
+        int startEverythingY = textArea[1]; // canvas units
+
+        if (cursorLocation > node.getInnerText().length()) {
+            cursorLocation = node.getInnerText().length();
+        } else if (cursorLocation < 0) {
+            cursorLocation = 0;
+        }
+
+        LabelLayout text = texts.getLayout(node, 0, node.getInnerText(), g, textArea[2]);
+
+        if (node.getInnerText().length() > 0 && text.getRowCount() > 0) {
+            int lineHeight = text.getLineHeight();
 
             int sumOfCharsPrevRows = 0;
 
-            boolean drawnCursorYet = false;
-            
-            // draw according to how the row was organized
-            for (int r = 0; r < text.size(); r++) {
-                g.drawString(text.get(r), (int) startEverythingX,
-                        (int) startEverythingY + (r * lineHeight));
-                if (sumOfCharsPrevRows + text.get(r).length() > cursorLocation) {
-                   if (!drawnCursorYet && blinkCursor) {
-                        // get the offset for where to draw the cursor
-                       /* int thisRowOffset = (int)((g.getFontMetrics().getStringBounds(
-                                (text.get(r).substring(0, cursorLocation - sumOfCharsPrevRows)), g)).getWidth());
-                               */
-                       int thisRowOffset = g.getFontMetrics().stringWidth(text.get(r).substring(0, cursorLocation - sumOfCharsPrevRows));
-                        //draw the cursor
-                       g.setColor(Color.BLACK);
-                        g2.fillRect((int)startEverythingX + thisRowOffset, 
-                            (int)startEverythingY + (lineHeight * (r - 1)) - 2, 
+            // find the row the cursor is in
+            for (int r = 0; r < text.getRowCount(); r++) {
+                if (sumOfCharsPrevRows + text.getRow(r).length() > cursorLocation) {
+                    // get the offset for where to draw the cursor
+                    int thisRowOffset = fm.stringWidth(text.getRow(r).substring(0, cursorLocation - sumOfCharsPrevRows));
+                    cursor.setBounds(startEverythingX + thisRowOffset,
+                            startEverythingY + (lineHeight * (r - 1)) - 2,
                             3, lineHeight + 4);
-                        drawnCursorYet = true;
-                        g.setColor(node.getStyle().getFontColor());
-                    }
+                    return Color.BLACK;
                 } else {
-                    sumOfCharsPrevRows += text.get(r).length();
+                    sumOfCharsPrevRows += text.getRow(r).length();
                 }
             }
-            
-            // draw it at the end if not yet drawn
-            if (blinkCursor && !drawnCursorYet) {
-                int lastRow = text.size() - 1;
-                //draw the cursor
-                g2.fillRect((int)startEverythingX + g.getFontMetrics().stringWidth(
-                       text.get(lastRow)), 
-                    (int)startEverythingY + (lineHeight * (lastRow - 1)) - 2, 
+
+            // draw it at the end if it's after all of the rows
+            int lastRow = text.getRowCount() - 1;
+            cursor.setBounds(startEverythingX + text.getRowWidth(lastRow),
+                    startEverythingY + (lineHeight * (lastRow - 1)) - 2,
                     3, lineHeight + 4);
-            }
-        // only draw the cursor is there is no text to go through
-        } else {
-            int lineHeight = g.getFontMetrics().getHeight();
-            // if the cursor is still not drawn yet and there is no text
-            if (blinkCursor && node.getInnerText().length() == 0) {
-                //draw the cursor at the start
-                g2.fillRect((int)startEverythingX, 
-                    (int)startEverythingY - lineHeight - 2, 
+            return node.getStyle().getFontColor();
+        } else if (node.getInnerText().length() == 0) {
+            int lineHeight = fm.getHeight();
+            //draw the cursor at the start if there is no text
+            cursor.setBounds(startEverythingX,
+                    startEverythingY - lineHeight - 2,
                     3, lineHeight + 4);
+            return node.getStyle().getBorderColor();
+        }
+        return null;
+    }
+
+    /**
+     * Holds the outline of every shape in a 1 by 1 box, which is scaled and
+     * moved to fit over a node. The outlines are made the first time one is
+     * needed, after all of the shapes exist.
+     */
+    private static class Templates {
+
+        private static final Path2D.Float[] BY_ORDINAL;
+
+        static {
+            Shape[] shapes = values();
+            BY_ORDINAL = new Path2D.Float[shapes.length];
+            for (Shape shape : shapes) {
+                BY_ORDINAL[shape.ordinal()] = createTemplate(shape);
             }
         }
     }
@@ -0,0 +1,76 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.style;
+
+import java.awt.Graphics;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the layout of the text of every node and line drawn in a view, so
+ * the text only has to be wrapped and measured again when it is edited or
+ * when its font, size or wrap width changes.
+ * @author Jonathon
+ */
+public class TextLayoutCache {
+
+    /**
+     * The number of pieces of text an object can have. A node has one,
+     * and a line has a tail, center and head text.
+     */
+    private static final int PARTS = 3;
+
+    /**
+     * The layouts of each object's text. Objects that are no longer used
+     * are dropped on their own.
+     */
+    private final WeakHashMap<Object, LabelLayout[]> layouts;
+
+    /**
+     * Creates an empty cache.
+     */
+    public TextLayoutCache() {
+        layouts = new WeakHashMap<>();
+    }
+
+    /**
+     * Gets the layout of a piece of text, laying it out again if it has
+     * changed since the last time.
+     * @param owner the node or line that the text belongs to.
+     * @param part which piece of text of the owner this is.
+     * @param text the text.
+     * @param g the graphics context with the font the text is drawn in.
+     * @param wrapWidth the width each row can't get longer than, in canvas
+     * units, or {@link LabelLayout#NO_WRAP} to keep the text on one row.
+     * @return the layout of the text.
+     */
+    public LabelLayout getLayout(Object owner, int part, String text, Graphics g, int wrapWidth) {
+        LabelLayout[] parts = layouts.get(owner);
+        if (parts == null) {
+            parts = new LabelLayout[PARTS];
+            layouts.put(owner, parts);
+        }
+        LabelLayout layout = parts[part];
+        if (layout == null || !layout.isFor(text, g, wrapWidth)) {
+            layout = new LabelLayout(text, g, wrapWidth);
+            parts[part] = layout;
+        }
+        return layout;
+    }
+}
@@ -29,4 +29,10 @@ public interface BooleanBlinkListener {
      * @param value The value of the boolean value.
      */
     void booleanSwitch(boolean value);
+    
+    /**
+     * Checks to see if this listener wants the boolean value to blink.
+     * @return true if the boolean value should keep blinking for this listener.
+     */
+    boolean isBlinking();
 }
@@ -19,50 +19,83 @@
  */
 package bropals.processsketcher.util;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import javax.swing.Timer;
 
 /**
- * A thread that switches a boolean value true or false
+ * Switches a boolean value true or false on a timer. It runs on the event
+ * dispatch thread, so listeners can change the view when they are told
+ * about a switch. The timer only runs while a listener is blinking, and one
+ * blinker can be shared by every window.
  * @author Kevin
  */
-public class BooleanBlinker implements Runnable {
+public class BooleanBlinker implements ActionListener {
     
     private ArrayList<BooleanBlinkListener> listeners;
-    private int millisecondsBetween;
+    private Timer timer;
     private boolean value;
     
     public BooleanBlinker(int millis) {
-        this.millisecondsBetween = millis;
+        timer = new Timer(millis, this);
         value = false;
         listeners = new ArrayList<>();
     }
 
     public void addListener(BooleanBlinkListener bbl) {
         listeners.add(bbl);
+        update();
+    }
+    
+    public void removeListener(BooleanBlinkListener bbl) {
+        listeners.remove(bbl);
+        update();
     }
     
     public void clearListeners() {
         listeners.clear();
+        update();
     }
     
     public boolean getValue() {
         return value;
     }
     
-    @Override
-    public void run() {
-        boolean blinking = true;
-        while (blinking) {
-            try {
-                Thread.sleep(millisecondsBetween);
-            } catch(Exception e) {
-                System.err.println(e);
+    /**
+     * Starts the timer if a listener has started blinking, or stops it if
+     * none of them are blinking anymore. Call this whenever a listener
+     * might have started or stopped blinking.
+     */
+    public void update() {
+        boolean blinking = false;
+        for (BooleanBlinkListener bbl : listeners) {
+            if (bbl.isBlinking()) {
+                blinking = true;
+                break;
             }
-            
-            value = !value;
-            for (BooleanBlinkListener bbl : listeners) {
+        }
+        if (blinking && !timer.isRunning()) {
+            timer.start();
+        } else if (!blinking && timer.isRunning()) {
+            timer.stop();
+            value = false;
+        }
+    }
+    
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        value = !value;
+        boolean blinking = false;
+        for (BooleanBlinkListener bbl : listeners) {
+            if (bbl.isBlinking()) {
                 bbl.booleanSwitch(value);
+                blinking = true;
             }
         }
+        if (!blinking) {
+            timer.stop();
+            value = false;
+        }
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * Process Sketcher is a simple flowchart making software.
+ * Copyright (C) 2015  Jonathon Prehn, Kevin Prehn
+ *
+ * This file is a part of Process Sketcher.
+ *
+ * Process Sketcher is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Process Sketcher is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Process Sketcher.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package bropals.processsketcher.util;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set that compares its elements by identity and remembers the order
+ * they were added in. Adding, removing and checking for an element all
+ * take the same time no matter how big the set is.
+ * @author Jonathon
+ * @param <E> the type of the elements in the set.
+ */
+public class LinkedIdentitySet<E> extends AbstractSet<E> {
+
+    /**
+     * The link of every element in the set.
+     */
+    private final IdentityHashMap<E, Link<E>> links;
+    /**
+     * The element that was added first.
+     */
+    private Link<E> head;
+    /**
+     * The element that was added last.
+     */
+    private Link<E> tail;
+    /**
+     * Changes every time the set is changed, so iterators can tell
+     * if the set was changed out from under them.
+     */
+    private int modCount;
+
+    /**
+     * Creates an empty set.
+     */
+    public LinkedIdentitySet() {
+        links = new IdentityHashMap<>();
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (links.containsKey(e)) {
+            return false;
+        }
+        Link<E> link = new Link<>(e);
+        link.previous = tail;
+        if (tail == null) {
+            head = link;
+        } else {
+            tail.next = link;
+        }
+        tail = link;
+        links.put(e, link);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Link<E> link = links.remove(o);
+        if (link == null) {
+            return false;
+        }
+        unlink(link);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return links.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return links.size();
+    }
+
+    @Override
+    public void clear() {
+        links.clear();
+        head = null;
+        tail = null;
+        modCount++;
+    }
+
+    /**
+     * Gets the element that was added first.
+     * @return the oldest element, or <code>null</code> if the set is empty.
+     */
+    public E getFirst() {
+        return head == null ? null : head.element;
+    }
+
+    /**
+     * Gets the element that was added last.
+     * @return the newest element, or <code>null</code> if the set is empty.
+     */
+    public E getLast() {
+        return tail == null ? null : tail.element;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Link<E> next = head;
+            private Link<E> last = null;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = next.next;
+                return last.element;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                links.remove(last.element);
+                unlink(last);
+                last = null;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /**
+     * Takes a link out of the chain of links.
+     * @param link the link to take out.
+     */
+    private void unlink(Link<E> link) {
+        if (link.previous == null) {
+            head = link.next;
+        } else {
+            link.previous.next = link.next;
+        }
+        if (link.next == null) {
+            tail = link.previous;
+        } else {
+            link.next.previous = link.previous;
+        }
+        link.previous = null;
+        link.next = null;
+        modCount++;
+    }
+
+    /**
+     * One element in the chain of elements.
+     * @param <E> the type of the element.
+     */
+    private static class Link<E> {
+
+        private final E element;
+        private Link<E> previous;
+        private Link<E> next;
+
+        private Link(E element) {
+            this.element = element;
+        }
+    }
+}